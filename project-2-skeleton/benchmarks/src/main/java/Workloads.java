@@ -0,0 +1,209 @@
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Field;
+import java.util.SplittableRandom;
+import java.util.function.IntSupplier;
+
+/**
+ * The Workloads class sets up the game code measured by the JMH benchmarks.
+ * The game lives in the default package, which classes in a named package cannot import,
+ * and JMH requires benchmarks to be in a named package. So each workload is built here and
+ * handed to the benchmarks as an IntSupplier, which they look up once through BenchmarkWorkloads
+ * and then call directly; the value returned is consumed so the work is not optimised away.
+ * Scenes the game only reaches after many frames, such as a screen full of arrows or enemies,
+ * are set up directly in the private pools of the Guardian and GameSession, which are looked up
+ * by reflection before the workload is returned, so the game does not widen its API for them.
+ *
+ * Attributes:
+ * - LANES, LOCATIONS: The directions and x-coordinates of the lanes of synthetic charts.
+ * - FRAMES_PER_NOTE: The frames between notes in the same lane of a synthetic chart.
+ * - HOLD_EVERY: Every this many notes of a synthetic chart is a hold note.
+ */
+public class Workloads {
+    private static final String[] LANES = {"Left", "Right", "Up", "Down"};
+    private static final int[] LOCATIONS = {282, 742, 432, 592};
+    private static final int FRAMES_PER_NOTE = 2;
+    private static final int HOLD_EVERY = 10;
+    private Workloads() {
+    }
+    /**
+     * Writes a dense synthetic chart to a temporary file.
+     * The notes are spread over four lanes, with a note in each lane every FRAMES_PER_NOTE frames,
+     * so each lane has over a hundred notes on screen.
+     *
+     * @param notes the number of notes
+     * @param compiled true to write the compiled format, false to write CSV
+     * @return the path of the chart, which is deleted when the JVM exits
+     * @throws IOException if the chart cannot be written
+     */
+    public static String writeChart(int notes, boolean compiled) throws IOException {
+        File csv = File.createTempFile("synthetic" + notes, ".csv");
+        csv.deleteOnExit();
+        try (PrintWriter out = new PrintWriter(csv)) {
+            for (int i = 0; i < LANES.length; i++) {
+                out.println("Lane," + LANES[i] + "," + LOCATIONS[i]);
+            }
+            for (int i = 0; i < notes; i++) {
+                String type = i % HOLD_EVERY == HOLD_EVERY - 1 ? "Hold" : "Normal";
+                out.println(LANES[i % LANES.length] + "," + type + "," + (1 + i / LANES.length * FRAMES_PER_NOTE));
+            }
+        }
+        if (!compiled) {
+            return csv.getPath();
+        }
+        String path = ChartCompiler.compile(csv.getPath());
+        new File(path).deleteOnExit();
+        return path;
+    }
+    /**
+     * Loads a chart, as at the start of a level.
+     *
+     * @param path the path of the CSV or compiled chart
+     * @return the workload, which returns the number of notes loaded
+     */
+    public static IntSupplier loadChart(String path) {
+        return () -> {
+            try {
+                return Chart.load(path).getNoteCount();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        };
+    }
+    /**
+     * Advances a session on a dense synthetic chart by one frame, with no keys pressed.
+     * When the chart finishes, a new session is started; on the larger charts this never
+     * happens during a measurement.
+     *
+     * @param notes the number of notes in the chart
+     * @param enemies the number of enemies kept on screen, or 0 to disable enemies
+     * @return the workload, which returns the score
+     * @throws IOException if the chart cannot be written or read
+     */
+    public static IntSupplier sessionFrame(int notes, int enemies) throws IOException {
+        Chart chart = Chart.load(writeChart(notes, true));
+        KeyInput idle = new ScriptedKeyInput();
+        return new IntSupplier() {
+            private GameSession session = start();
+
+            private GameSession start() {
+                GameSession fresh = new GameSession(chart, enemies > 0, 0);
+                Pool<Enemy> pool = privateField(fresh, "enemies");
+                SpeedController speeds = privateField(fresh, "speeds");
+                SplittableRandom random = privateField(fresh, "random");
+                for (int i = 0; i < enemies; i++) {
+                    Enemy enemy = pool.obtain();
+                    if (enemy == null) {
+                        break;
+                    }
+                    enemy.spawn(speeds.getEnemySpeed(), random);
+                }
+                return fresh;
+            }
+
+            @Override
+            public int getAsInt() {
+                if (session.isFinished()) {
+                    session.dispose();
+                    session = start();
+                }
+                session.update(idle);
+                return session.getScore();
+            }
+        };
+    }
+    /**
+     * Checks if a session part way through a dense synthetic chart is finished.
+     *
+     * @param notes the number of notes in the chart
+     * @return the workload, which returns 1 if the session is finished and 0 otherwise
+     * @throws IOException if the chart cannot be written or read
+     */
+    public static IntSupplier isFinished(int notes) throws IOException {
+        GameSession session = new GameSession(Chart.load(writeChart(notes, true)), false, 0);
+        KeyInput idle = new ScriptedKeyInput();
+        for (int i = 0; i < 300; i++) {
+            session.update(idle);
+        }
+        return () -> session.isFinished() ? 1 : 0;
+    }
+    /**
+     * Scores a note against the target height, stepping the note down the screen on each call
+     * and pressing the key on every other call, at the time the press would have been made
+     * at the initial note speed.
+     *
+     * @return the workload, which returns the score
+     */
+    public static IntSupplier evaluateScore() {
+        Accuracy accuracy = new Accuracy();
+        return new IntSupplier() {
+            private int y = 0;
+
+            @Override
+            public int getAsInt() {
+                y = (y + 7) % 768;
+                return (y & 1) == 0
+                        ? accuracy.evaluateScore(Accuracy.toWindow(y - 657))
+                        : accuracy.evaluateMiss(y);
+            }
+        };
+    }
+    /**
+     * Updates a Guardian with arrows and enemies scattered over the enemies' area.
+     * Each call first puts the arrows and enemies back where they started, which is a small
+     * part of the cost, so every call checks the same collisions.
+     *
+     * @param arrowCount the number of arrows in flight
+     * @param enemyCount the number of enemies
+     * @return the workload, which returns the number of arrows left in flight
+     */
+    public static IntSupplier guardianUpdate(int arrowCount, int enemyCount) {
+        SpeedController speeds = new SpeedController();
+        Guardian guardian = new Guardian(speeds, arrowCount);
+        Pool<Arrow> guardianArrows = privateField(guardian, "arrows");
+        Pool<Enemy> enemies = new Pool<>(enemyCount, Enemy::new);
+        KeyInput idle = new ScriptedKeyInput();
+        double[] arrows = new double[arrowCount * 4];
+        SplittableRandom random = new SplittableRandom(42);
+        for (int i = 0; i < arrowCount; i++) {
+            double angle = random.nextDouble() * 2 * Math.PI;
+            arrows[i * 4] = 100 + random.nextDouble() * 800;
+            arrows[i * 4 + 1] = 100 + random.nextDouble() * 400;
+            arrows[i * 4 + 2] = Math.cos(angle);
+            arrows[i * 4 + 3] = Math.sin(angle);
+        }
+        return () -> {
+            guardianArrows.clear();
+            for (int i = 0; i < arrowCount; i++) {
+                guardianArrows.obtain().launch(arrows[i * 4], arrows[i * 4 + 1], arrows[i * 4 + 2], arrows[i * 4 + 3]);
+            }
+            enemies.clear();
+            SplittableRandom placement = new SplittableRandom(7);
+            for (int i = 0; i < enemyCount; i++) {
+                enemies.obtain().spawn(speeds.getEnemySpeed(), placement);
+            }
+            guardian.update(idle, enemies);
+            return guardian.getArrowCount();
+        };
+    }
+    /**
+     * Gets the value of a private field of a game object, to set up a scene in it.
+     *
+     * @param owner the object
+     * @param name the name of the field
+     * @param <T> the type of the field
+     * @return the value of the field
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> T privateField(Object owner, String name) {
+        try {
+            Field field = owner.getClass().getDeclaredField(name);
+            field.setAccessible(true);
+            return (T) field.get(owner);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("no field " + name + " in " + owner.getClass().getName(), e);
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package shadowdance.benchmarks;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.function.IntSupplier;
+
+/**
+ * Looks up the workloads built by the default-package Workloads class.
+ * Benchmarks call this once in their setup and then call the returned IntSupplier directly,
+ * so reflection is never on the measured path.
+ */
+final class BenchmarkWorkloads {
+    private BenchmarkWorkloads() {
+    }
+
+    /**
+     * Calls a static method of Workloads by name.
+     *
+     * @param name the name of the method
+     * @param args the arguments, boxed
+     * @return the value returned by the method
+     */
+    static Object call(String name, Object... args) {
+        try {
+            for (Method method : Class.forName("Workloads").getMethods()) {
+                if (method.getName().equals(name) && method.getParameterCount() == args.length) {
+                    return method.invoke(null, args);
+                }
+            }
+            throw new IllegalArgumentException("no workload " + name + " taking " + args.length + " arguments");
+        } catch (InvocationTargetException e) {
+            throw new IllegalStateException("workload " + name + " failed", e.getCause());
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Builds a workload.
+     *
+     * @param name the name of the Workloads method that builds it
+     * @param args the arguments, boxed
+     * @return the workload
+     */
+    static IntSupplier get(String name, Object... args) {
+        return (IntSupplier) call(name, args);
+    }
+}
@@ -0,0 +1,46 @@
+package shadowdance.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntSupplier;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Time to load a synthetic chart from CSV and from the compiled format.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ChartLoadBenchmark {
+    @Param({"1000", "10000", "1000000"})
+    public int notes;
+
+    @Param({"csv", "compiled"})
+    public String format;
+
+    private IntSupplier load;
+
+    @Setup
+    public void setUp() {
+        String path = (String) BenchmarkWorkloads.call("writeChart", notes, format.equals("compiled"));
+        load = BenchmarkWorkloads.get("loadChart", path);
+    }
+
+    @Benchmark
+    public int load() {
+        return load.getAsInt();
+    }
+}
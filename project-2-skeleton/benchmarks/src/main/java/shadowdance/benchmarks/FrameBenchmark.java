@@ -0,0 +1,48 @@
+package shadowdance.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntSupplier;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Cost of one simulated frame on dense synthetic charts.
+ * With enemies = 0 this is the lanes' update (Lane.update for every lane); with enemies
+ * on screen it adds the enemies' movement, the enemy-vs-note collision pass and the Guardian.
+ * Run with "-prof gc" to check that a steady-state frame allocates nothing.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FrameBenchmark {
+    @Param({"1000", "10000", "1000000"})
+    public int notes;
+
+    @Param({"0", "64"})
+    public int enemies;
+
+    private IntSupplier frame;
+
+    @Setup
+    public void setUp() {
+        frame = BenchmarkWorkloads.get("sessionFrame", notes, enemies);
+    }
+
+    @Benchmark
+    public int frame() {
+        return frame.getAsInt();
+    }
+}
@@ -0,0 +1,46 @@
+package shadowdance.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntSupplier;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Guardian.update with many arrows in flight against many enemies.
+ * At 1000 x 1000 this should stay well under a 16.7 ms frame.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GuardianBenchmark {
+    @Param({"10", "100", "1000"})
+    public int arrows;
+
+    @Param({"10", "100", "1000"})
+    public int enemies;
+
+    private IntSupplier update;
+
+    @Setup
+    public void setUp() {
+        update = BenchmarkWorkloads.get("guardianUpdate", arrows, enemies);
+    }
+
+    @Benchmark
+    public int update() {
+        return update.getAsInt();
+    }
+}
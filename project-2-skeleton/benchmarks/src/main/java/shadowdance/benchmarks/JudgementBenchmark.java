@@ -0,0 +1,49 @@
+package shadowdance.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntSupplier;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The small per-frame checks: Accuracy.evaluateScore and the end-of-level check.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JudgementBenchmark {
+    @Param({"1000", "10000", "1000000"})
+    public int notes;
+
+    private IntSupplier evaluateScore;
+    private IntSupplier isFinished;
+
+    @Setup
+    public void setUp() {
+        evaluateScore = BenchmarkWorkloads.get("evaluateScore");
+        isFinished = BenchmarkWorkloads.get("isFinished", notes);
+    }
+
+    @Benchmark
+    public int evaluateScore() {
+        return evaluateScore.getAsInt();
+    }
+
+    @Benchmark
+    public int isFinished() {
+        return isFinished.getAsInt();
+    }
+}
@@ -8,6 +8,11 @@ import bagel.*;
  * The Accuracy class is responsible for managing the scoring system of the game.
  * It defines different score values and labels for different levels of accuracy.
  * It also handles the rendering of the accuracy label on the screen.
+ * Scoring does not depend on the window, so it can be evaluated headlessly.
+ * A key press is judged by how many milliseconds it is from the moment the note reaches the
+ * target, so accuracy does not depend on the frame rate or how fast the notes are scrolling.
+ * The windows are the distances the game has always used, converted to time at the initial
+ * note speed and the simulation rate.
  * 
  * Attributes:
  * - PERFECT_SCORE: The score for a perfect hit.
@@ -16,8 +21,12 @@ import bagel.*;
  * - MISS_SCORE: The score for a miss.
  * - NOT_SCORED: The score for a not scored hit.
  * - PERFECT, GOOD, BAD, MISS: Labels for different levels of accuracy.
- * - PERFECT_RADIUS, GOOD_RADIUS, BAD_RADIUS, MISS_RADIUS: The radius for different levels of accuracy.
- * - ACCURACY_FONT: The font used for the accuracy label.
+ * - PERFECT_RADIUS, GOOD_RADIUS, BAD_RADIUS, MISS_RADIUS: The distance from the target for different
+ *   levels of accuracy at the initial note speed.
+ * - PERFECT_WINDOW, GOOD_WINDOW, BAD_WINDOW, MISS_WINDOW: The time from the target for different
+ *   levels of accuracy, in milliseconds.
+ * - WINDOW_HEIGHT: The height of the window, past which a note is missed.
+ * - ACCURACY_FONT: The font used for the accuracy label, which keeps the width of each label.
  * - RENDER_FRAMES: The number of frames the accuracy label is rendered for.
  * - currAccuracy: The current accuracy label.
  * - frameCount: The current frame count.
@@ -36,7 +45,12 @@ public class Accuracy {
     private static final int GOOD_RADIUS = 50;
     private static final int BAD_RADIUS = 100;
     private static final int MISS_RADIUS = 200;
-    private static final Font ACCURACY_FONT = new Font(ShadowDance.FONT_FILE, 40);
+    private static final double PERFECT_WINDOW = toWindow(PERFECT_RADIUS);
+    private static final double GOOD_WINDOW = toWindow(GOOD_RADIUS);
+    private static final double BAD_WINDOW = toWindow(BAD_RADIUS);
+    private static final double MISS_WINDOW = toWindow(MISS_RADIUS);
+    static final int WINDOW_HEIGHT = 768;
+    private static final CachedFont ACCURACY_FONT = new CachedFont(ShadowDance.FONT_FILE, 40);
     private static final int RENDER_FRAMES = 30;
     private String currAccuracy = null;
     private int frameCount = 0;
@@ -50,51 +64,67 @@ public class Accuracy {
         frameCount = 0;
     }
     /**
-     * Evaluates the score based on the height of the note press, the target height, and whether the note was triggered.
-     * The score and accuracy label are determined by the distance between the height and the target height.
+     * Converts a distance from the target to the time notes take to scroll it at the initial speed.
      *
-     * @param height the height of the note press
-     * @param targetHeight the target height of the note press
-     * @param triggered whether the note was triggered
-     * @return the score for the note press
+     * @param radius the distance from the target, in pixels
+     * @return the time, in milliseconds
      */
-    public int evaluateScore(int height, int targetHeight, boolean triggered) {
-        int distance = Math.abs(height - targetHeight);
-
-        if (triggered) {
-            if (distance <= PERFECT_RADIUS) {
-                setAccuracy(PERFECT);
-                return PERFECT_SCORE;
-            } else if (distance <= GOOD_RADIUS) {
-                setAccuracy(GOOD);
-                return GOOD_SCORE;
-            } else if (distance <= BAD_RADIUS) {
-                setAccuracy(BAD);
-                return BAD_SCORE;
-            } else if (distance <= MISS_RADIUS) {
-                setAccuracy(MISS);
-                return MISS_SCORE;
-            }
-
-        } else if (height >= (Window.getHeight())) {
+    public static double toWindow(int radius) {
+        return radius * 1000.0 / (SpeedController.INITIAL_NOTE_SPEED * FixedTimestep.TICKS_PER_SECOND);
+    }
+    /**
+     * Evaluates the score of a key press by how far it was from the moment the note reached the target.
+     * The score and accuracy label are determined by the size of the error.
+     *
+     * @param errorMillis the time of the press less the time the note reaches the target, in milliseconds
+     * @return the score for the note press, or NOT_SCORED if it is too far from the note
+     */
+    public int evaluateScore(double errorMillis) {
+        double error = Math.abs(errorMillis);
+        if (error <= PERFECT_WINDOW) {
+            setAccuracy(PERFECT);
+            return PERFECT_SCORE;
+        } else if (error <= GOOD_WINDOW) {
+            setAccuracy(GOOD);
+            return GOOD_SCORE;
+        } else if (error <= BAD_WINDOW) {
+            setAccuracy(BAD);
+            return BAD_SCORE;
+        } else if (error <= MISS_WINDOW) {
+            setAccuracy(MISS);
+            return MISS_SCORE;
+        }
+        return NOT_SCORED;
+    }
+    /**
+     * Evaluates the score of a note that has not been triggered.
+     * The note is missed once it reaches the bottom of the window.
+     *
+     * @param height the height of the note
+     * @return MISS_SCORE if the note is missed, NOT_SCORED otherwise
+     */
+    public int evaluateMiss(int height) {
+        if (height >= WINDOW_HEIGHT) {
             setAccuracy(MISS);
             return MISS_SCORE;
         }
-
         return NOT_SCORED;
-
     }
 
     /**
-     * Updates the frame count and renders the current accuracy label on the screen.
-     * The accuracy label is rendered for a certain number of frames after it is set.
+     * Updates the frame count of the current accuracy label.
      */
     public void update() {
         frameCount++;
+    }
+    /**
+     * Renders the current accuracy label on the screen.
+     * The accuracy label is rendered for a certain number of frames after it is set.
+     * The labels are constants, so each is only measured the first time it is drawn.
+     */
+    public void draw() {
         if (currAccuracy != null && frameCount < RENDER_FRAMES) {
-            ACCURACY_FONT.drawString(currAccuracy,
-                    Window.getWidth()/2 - ACCURACY_FONT.getWidth(currAccuracy)/2,
-                    Window.getHeight()/2);
+            ACCURACY_FONT.drawCentred(currAccuracy, Window.getWidth()/2.0, Window.getHeight()/2.0);
         }
     }
 }
@@ -0,0 +1,109 @@
+import java.lang.management.ManagementFactory;
+
+/**
+ * The AllocationProbe class measures how much a GameSession allocates per frame once it has warmed up.
+ * It plays a chart headlessly with enemies enabled, and after the warm-up frames counts the
+ * bytes the thread allocates on each frame with the JVM's per-thread allocation counter.
+ * Enemies and arrows come from pools, so every frame of the steady-state loop, including
+ * frames that spawn them, should allocate nothing.
+ * The play is measured as the game runs it: once with FrameProfiler.DISABLED, and once with an
+ * enabled FrameProfiler timing each frame, as when profiling is on or the overlay is shown.
+ * While the JIT is still settling, a deoptimization can put objects on the heap that compiled
+ * code had kept off it, once and at no particular frame; an allocation the game makes happens
+ * again in every fresh play. So a play that allocated is played again, up to ATTEMPTS times,
+ * and the probe exits with status 1 if every attempt of either play allocated anything.
+ *
+ * Usage: AllocationProbe chart [script.txt] [warmup] [frames]
+ * - chart: The CSV or compiled chart to play.
+ * - script.txt: The key script to replay (see ScriptedKeyInput), or "-" for no input.
+ * - warmup: The number of frames to play before measuring; defaults to 2000.
+ * - frames: The number of frames to measure; defaults to 3000.
+ *
+ * Attributes:
+ * - ATTEMPTS: The number of times a play that allocated is made before the probe fails.
+ */
+public class AllocationProbe {
+    private static final int ATTEMPTS = 3;
+
+    private AllocationProbe() {
+    }
+    /**
+     * The entry point for the probe.
+     *
+     * @param args command-line arguments
+     */
+    public static void main(String[] args) throws Exception {
+        if (args.length < 1) {
+            System.err.println("Usage: AllocationProbe chart [script.txt] [warmup] [frames]");
+            System.exit(-1);
+        }
+        Chart chart = Chart.load(args[0]);
+        int warmup = args.length > 2 ? Integer.parseInt(args[2]) : 2000;
+        int frames = args.length > 3 ? Integer.parseInt(args[3]) : 3000;
+
+        boolean passed = measure("disabled profiler", FrameProfiler.DISABLED, chart, args, warmup, frames);
+        passed &= measure("enabled profiler", new FrameProfiler(0), chart, args, warmup, frames);
+        if (!passed) {
+            System.exit(1);
+        }
+    }
+
+    private static boolean measure(String label, FrameProfiler profiler, Chart chart, String[] args,
+                                   int warmup, int frames) throws Exception {
+        long[] result = null;
+        for (int attempt = 1; attempt <= ATTEMPTS; attempt++) {
+            result = play(profiler, chart, args, warmup, frames);
+            if (result[0] == 0) {
+                break;
+            }
+        }
+        boolean passed = result[0] == 0;
+        System.out.printf("%s%s: %d bytes over %d frames (%d frames allocated)%n", passed ? "OK   " : "FAIL ",
+                label, result[0], frames, result[1]);
+        return passed;
+    }
+    /**
+     * Plays a chart in a fresh session and measures the frames after the warm-up.
+     *
+     * @return the bytes allocated and the number of frames that allocated
+     */
+    private static long[] play(FrameProfiler profiler, Chart chart, String[] args, int warmup, int frames)
+            throws Exception {
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        ScriptedKeyInput input = args.length > 1 && !args[1].equals("-")
+                ? ScriptedKeyInput.readScript(args[1]) : new ScriptedKeyInput();
+        GameSession session = new GameSession(chart, true, 0);
+        session.setProfiler(profiler);
+        for (int i = 0; i < warmup; i++) {
+            input.advanceTo(session.getCurrFrame() + 1);
+            update(session, input, profiler);
+        }
+
+        long totalBytes = 0;
+        int allocatingFrames = 0;
+        for (int i = 0; i < frames; i++) {
+            input.advanceTo(session.getCurrFrame() + 1);
+            long before = threads.getThreadAllocatedBytes(threadId);
+            update(session, input, profiler);
+            long allocated = threads.getThreadAllocatedBytes(threadId) - before;
+            totalBytes += allocated;
+            if (allocated > 0) {
+                allocatingFrames++;
+            }
+        }
+        session.dispose();
+        return new long[] {totalBytes, allocatingFrames};
+    }
+    /**
+     * Runs one frame of a session the way ShadowDance does, timing it as a whole and ending
+     * the profiler's frame.
+     */
+    private static void update(GameSession session, ScriptedKeyInput input, FrameProfiler profiler) {
+        long frameStart = profiler.start();
+        session.update(input);
+        profiler.stop(FrameProfiler.Section.FRAME, frameStart);
+        profiler.endFrame();
+    }
+}
@@ -1,46 +1,69 @@
 import bagel.*;
-import bagel.util.Point;
-import bagel.util.Vector2;
 /**
  * The Arrow class represents an arrow shot by the Guardian.
  * Arrows move in a straight line and stop updating when they hit an enemy or the window edges.
+ * Its position and direction are plain coordinates moved in place, and its rotation is
+ * worked out once when it is fired, so updating and drawing an arrow do not allocate.
+ * Arrows are reused through a Pool: each one is created once and aimed by launch each
+ * time it is fired.
  * 
  * Attributes:
- * - image: The image of the arrow.
- * - position: The current position of the arrow.
- * - direction: The direction of the arrow.
- * - speed: The speed of the arrow.
+ * - texture: The shared texture of the arrow.
+ * - x, y: The current position of the arrow.
+ * - dx, dy: The direction of the arrow, as a unit vector.
+ * - rotation: The angle that rotates the arrow to face its direction, in radians.
  * - isHit: A boolean indicating whether the arrow has hit an enemy or the window edges.
  * - WINDOW_WIDTH: The width of the window.
  * - WINDOW_HEIGHT: The height of the window.
  */
 public class Arrow {
-    private final Image image = new Image("res/arrow.png");
-    private Point position;
-    private Vector2 direction;
-    private static int speed = 6;
+    private final Texture texture = TextureCache.acquire("res/arrow.png");
+    private double x;
+    private double y;
+    private double dx;
+    private double dy;
+    private double rotation = 0;
     private boolean isHit = false;
     private final static int WINDOW_WIDTH = 1024;
     private final static int WINDOW_HEIGHT = 768;
     /**
-     * Constructs an Arrow with a given direction.
+     * Fires the arrow from a given position in a given direction.
      *
-     * @param direction the direction of the arrow
+     * @param x the x-coordinate of the arrow
+     * @param y the y-coordinate of the arrow
+     * @param dx the x-component of the direction of the arrow, as a unit vector
+     * @param dy the y-component of the direction of the arrow, as a unit vector
      */
-    public Arrow(Vector2 direction) {
-        this.direction = direction;
-        this.position = new Point(Guardian.getPosition().x, Guardian.getPosition().y);
+    public void launch(double x, double y, double dx, double dy) {
+        this.x = x;
+        this.y = y;
+        this.dx = dx;
+        this.dy = dy;
+        this.isHit = false;
+        rotation = Math.atan2(dy, dx);
     }
     /**
      * Updates the position of the arrow and checks for collisions with the window edges.
      * If the arrow hits the window edges, it is marked as hit.
+     *
+     * @param speed the speed of the arrow
      */
-    public void update() {
-        position = position.asVector().add(direction.mul(speed)).asPoint();
-        if (position.x <= 0 || position.x >= WINDOW_WIDTH || position.y <= 0 || position.y >= WINDOW_HEIGHT) {
+    public void update(int speed) {
+        x += dx * speed;
+        y += dy * speed;
+        if (x <= 0 || x >= WINDOW_WIDTH || y <= 0 || y >= WINDOW_HEIGHT) {
             isHit = true;
         }
-        image.draw(position.x, position.y, new DrawOptions().setRotation(Math.atan2(direction.y, direction.x)));
+    }
+    /**
+     * Draws the arrow part way to its next position, rotated to face its direction.
+     *
+     * @param batch the sprite batch of the frame
+     * @param alpha how far the simulation is through the next frame, from 0 to 1
+     * @param speed the speed of the arrow
+     */
+    public void draw(SpriteBatch batch, double alpha, int speed) {
+        batch.add(SpriteBatch.Layer.ARROWS, texture, x + dx * speed * alpha, y + dy * speed * alpha, rotation);
     }
     /**
      * Checks if the arrow has hit an enemy or the window edges.
@@ -57,27 +80,26 @@ public class Arrow {
         this.isHit = true;
     }
     /**
-     * Gets the current position of the arrow.
-     *
-     * @return the current position of the arrow
+     * Releases the shared texture of the arrow when its pool is disposed.
+     * The arrow must not be updated after it is released.
      */
-    public Point getPosition() {
-        return this.position;
+    public void release() {
+        TextureCache.release(texture);
     }
     /**
-     * Increases the speed of the arrow by 1.
-     * This is a static method and affects the speed of all arrows.
+     * Gets the x-coordinate of the arrow.
+     *
+     * @return the x-coordinate of the arrow
      */
-    public static void increaseSpeed() {
-        speed++;
+    public double getX() {
+        return x;
     }
     /**
-     * Decreases the speed of the arrow by 1 if the current speed is greater than 1.
-     * This is a static method and affects the speed of all arrows.
+     * Gets the y-coordinate of the arrow.
+     *
+     * @return the y-coordinate of the arrow
      */
-    public static void decreaseSpeed() {
-        if (speed > 1) {
-            speed--;
-        }
+    public double getY() {
+        return y;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,42 @@
+/**
+ * The AudioDevice interface is a song being played, as seen by the game's clock.
+ * The game only needs to start, pause and stop the song, keep its stream fed, and know how
+ * many sample frames have been played; SongClock turns that into gameplay time.
+ */
+public interface AudioDevice extends AutoCloseable {
+    /**
+     * Starts or resumes playing the song.
+     */
+    void play();
+    /**
+     * Pauses the song, keeping its position.
+     */
+    void pause();
+    /**
+     * Feeds the stream, if the device streams. Called once per rendered frame.
+     */
+    void update();
+    /**
+     * Checks if the song is playing, rather than paused, stopped or finished.
+     *
+     * @return true if the song is playing, false otherwise
+     */
+    boolean isPlaying();
+    /**
+     * Gets the number of sample frames played since the start of the song.
+     *
+     * @return the playback position, in sample frames
+     */
+    long getSamplePosition();
+    /**
+     * Gets the number of sample frames played per second.
+     *
+     * @return the sample rate, in hertz
+     */
+    int getSampleRate();
+    /**
+     * Stops the song and releases the device.
+     */
+    @Override
+    void close();
+}
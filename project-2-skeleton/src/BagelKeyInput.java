@@ -0,0 +1,29 @@
+import bagel.*;
+
+/**
+ * The BagelKeyInput class adapts the live bagel Input to the KeyInput interface.
+ *
+ * Attributes:
+ * - input: The bagel Input for the current frame.
+ */
+public class BagelKeyInput implements KeyInput {
+    private Input input;
+    /**
+     * Sets the bagel Input for the current frame.
+     *
+     * @param input the current input (keyboard and mouse state)
+     */
+    public void setInput(Input input) {
+        this.input = input;
+    }
+
+    @Override
+    public boolean wasPressed(Keys key) {
+        return input.wasPressed(key);
+    }
+
+    @Override
+    public boolean wasReleased(Keys key) {
+        return input.wasReleased(key);
+    }
+}
@@ -0,0 +1,24 @@
+/**
+ * The BagelSpriteRenderer class draws sprites on the bagel window.
+ * bagel draws one image at a time, so each sprite is still its own draw; but since a layer's
+ * sprites are submitted back to back and all come from the TextureAtlas, they are drawn
+ * without switching textures between them.
+ */
+public class BagelSpriteRenderer implements SpriteRenderer {
+    @Override
+    public void beginLayer(SpriteBatch.Layer layer) {
+    }
+
+    @Override
+    public void draw(Texture texture, double x, double y, double rotation) {
+        if (rotation == 0) {
+            texture.draw(x, y);
+        } else {
+            texture.draw(x, y, rotation);
+        }
+    }
+
+    @Override
+    public void endLayer() {
+    }
+}
@@ -1,111 +1,58 @@
 import bagel.*;
 /**
- * The BombNote class represents a special type of Note in the game.
- * When activated, it moves down the screen at a certain speed.
- * It can be deactivated by pressing a key when it is within a certain distance from the target height.
+ * The BombNote class represents the behaviour of bomb notes.
+ * When activated, a bomb note moves down the screen at a certain speed.
+ * It can be deactivated by pressing a key within a certain time of it reaching the target height.
  * 
  * Attributes:
- * - image: The image of the BombNote.
- * - appearanceFrame: The frame when the BombNote appears.
- * - speed: The speed of the BombNote.
- * - y: The y-coordinate of the BombNote.
- * - active: A boolean indicating whether the BombNote is active.
- * - completed: A boolean indicating whether the BombNote is completed.
- * - ACTIVATION_RADIUS: The radius within which the BombNote can be deactivated.
+ * - ACTIVATION_RADIUS: The distance from the target within which the BombNote can be deactivated at the initial note speed.
+ * - ACTIVATION_WINDOW: The same, as a time from the target in milliseconds.
  */
 public class BombNote extends Note {
-    private final Image image = new Image("res/noteBomb.png");
-    private final int appearanceFrame;
-    private static int speed = 2;
-    protected int y = 100;
-    private boolean active = false;
-    private boolean completed = false;
     private static final int ACTIVATION_RADIUS = 50;
+    private static final double ACTIVATION_WINDOW = Accuracy.toWindow(ACTIVATION_RADIUS);
     /**
-     * Constructs a BombNote with a given direction and appearance frame.
-     *
-     * @param dir the direction of the BombNote
-     * @param appearanceFrame the frame when the BombNote appears
-     */
-    public BombNote(String dir, int appearanceFrame) {
-        super(dir, appearanceFrame);
-        this.appearanceFrame = appearanceFrame;
-    }
-    /**
-     * Checks if the BombNote is active.
-     *
-     * @return true if the BombNote is active, false otherwise
-     */
-    public boolean isActive() {
-        return active;
-    }
-    /**
-     * Checks if the BombNote is completed.
-     *
-     * @return true if the BombNote is completed, false otherwise
-     */
-    public boolean isCompleted() {
-        return completed;
-    }
-    /**
-     * Deactivates the BombNote and marks it as completed.
-     */
-    public void deactivate() {
-        active = false;
-        completed = true;
-    }
-    /**
-     * Updates the state of the BombNote.
-     * If the BombNote is active, it moves down the screen.
-     * If the current frame is greater than or equal to the appearance frame and the BombNote is not completed, it is activated.
+     * Constructs the BombNote behaviour.
      */
-    public void update() {
-        if (active) {
-            y += speed;
-        }
-
-        if (ShadowDance.getCurrFrame() >= appearanceFrame && !completed) {
-            active = true;
-        }
+    public BombNote() {
+        super(TextureCache.acquire("res/noteBomb.png"));
     }
     /**
-     * Draws the BombNote on the screen at a given x-coordinate.
-     * The BombNote is only drawn if it is active.
+     * Gets the type of note this object is the behaviour of.
      *
-     * @param x the x-coordinate where the BombNote is drawn
+     * @return the type of the note
      */
-    public void draw(int x) {
-        if (active) {
-            image.draw(x, y);
-        }
+    @Override
+    public NoteType getType() {
+        return NoteType.BOMB;
     }
     /**
-     * Checks the score for the BombNote.
-     * If the BombNote is active and within a certain distance from the target height when a key is pressed, it is deactivated and a score is returned.
-     * If the BombNote has passed the target height, it is deactivated and a miss score is returned.
+     * Checks the score for a BombNote.
+     * If the BombNote is active and pressed within a certain time of reaching the target height, it is deactivated and a score is returned.
+     * If the BombNote has passed the target height, it is deactivated without a score.
      *
-     * @param input the current input (keyboard and mouse state)
+     * @param notes the store holding the note
+     * @param i the index of the note
+     * @param keys the press and release of the lane's key on the current frame
      * @param accuracy the current accuracy
      * @param targetHeight the target height for the BombNote
-     * @param relevantKey the key that deactivates the BombNote
      * @return the score for the BombNote
      */
     @Override
-    public int checkScore(Input input, Accuracy accuracy, int targetHeight, Keys relevantKey) {
-        if (isActive()) {
-            // Calculate the distance between the y-coordinate of the stationary note and the y-coordinate of the special note
-            int distance = Math.abs(y - targetHeight);
+    public int checkScore(NoteStore notes, int i, KeyTiming keys, Accuracy accuracy, int targetHeight) {
+        if (notes.isActive(i)) {
+            int y = notes.getY(i);
 
-            // If the distance is less than or equal to 50 and the relevant key is pressed, deactivate the note and return the score
-            if (distance <= ACTIVATION_RADIUS && input.wasPressed(relevantKey)) {
-                deactivate();
+            // If the relevant key is pressed close enough to the note reaching the target, deactivate the note and return the score
+            if (keys.wasPressed() && Math.abs(keys.pressError(notes, i, targetHeight)) <= ACTIVATION_WINDOW) {
+                notes.deactivate(i);
                 // code for removing lane but key is not registering right now
                 return 0;
             }
 
             // If the note has passed the target height, deactivate the note and return a miss score
             if (y >= targetHeight) {
-                deactivate();
+                notes.deactivate(i);
                 return Accuracy.NOT_SCORED;
             }
         }
@@ -113,18 +60,15 @@ public class BombNote extends Note {
         return Accuracy.NOT_SCORED;
     }
     /**
-     * Increases the speed of the Bomb by 1.
-     */
-    public static void increaseSpeed() {
-        speed++;
-    }
-    /**
-     * Decreases the speed of the Bomb by 1.
+     * Gets the deadline of a BombNote: the distance scrolled at which it passes the target height.
+     *
+     * @param notes the store holding the note
+     * @param i the index of the note
+     * @param targetHeight the target height for the BombNote
+     * @return the deadline, as a distance scrolled from the start of the song
      */
-    public static void decreaseSpeed() {
-        if (speed > 1) {
-            speed--;
-        }
+    @Override
+    public long getDeadline(NoteStore notes, int i, int targetHeight) {
+        return notes.distanceAt(i, targetHeight);
     }
-
-}
\ No newline at end of file
+}
@@ -0,0 +1,129 @@
+import java.util.HashMap;
+import java.util.Map;
+
+import bagel.*;
+
+/**
+ * The CachedFont class is a bagel Font that remembers what it has measured.
+ * The width of each string is measured once and kept, so labels that are centred every frame
+ * are not laid out again until their text changes. Numbers are drawn a digit at a time from
+ * cached single-digit strings, so a counter such as the score is drawn without building a new
+ * string each frame. The font is loaded on first use, so it can be created before the window.
+ *
+ * Attributes:
+ * - DIGITS: The string of each digit.
+ * - MINUS: The string of the minus sign.
+ * - MAX_DIGITS: The most digits an int has.
+ * - fontFile, size: The font file and size of the font.
+ * - font: The loaded font, or null if it has not been loaded yet.
+ * - widths: The width of each string measured so far.
+ * - digitWidths: The width of each digit, or -1 if it has not been measured yet.
+ * - minusWidth: The width of the minus sign, or -1 if it has not been measured yet.
+ * - digits: The digits of the number being drawn, reused for every number.
+ */
+public class CachedFont {
+    private static final String[] DIGITS = {"0", "1", "2", "3", "4", "5", "6", "7", "8", "9"};
+    private static final String MINUS = "-";
+    private static final int MAX_DIGITS = 10;
+    private final String fontFile;
+    private final int size;
+    private Font font = null;
+    private final Map<String, Double> widths = new HashMap<>();
+    private final double[] digitWidths = {-1, -1, -1, -1, -1, -1, -1, -1, -1, -1};
+    private double minusWidth = -1;
+    private final int[] digits = new int[MAX_DIGITS];
+    /**
+     * Constructs a CachedFont for a given font file and size.
+     *
+     * @param fontFile the path to the font file
+     * @param size the size of the font
+     */
+    public CachedFont(String fontFile, int size) {
+        this.fontFile = fontFile;
+        this.size = size;
+    }
+    /**
+     * Gets the loaded font, loading it on first use.
+     */
+    private Font getFont() {
+        if (font == null) {
+            font = new Font(fontFile, size);
+        }
+        return font;
+    }
+    /**
+     * Draws a string starting at a given position.
+     *
+     * @param text the string to draw
+     * @param x the x-coordinate of the string
+     * @param y the y-coordinate of the baseline of the string
+     */
+    public void drawString(String text, double x, double y) {
+        getFont().drawString(text, x, y);
+    }
+    /**
+     * Draws a string centred horizontally on a given x-coordinate.
+     *
+     * @param text the string to draw
+     * @param centreX the x-coordinate of the centre of the string
+     * @param y the y-coordinate of the baseline of the string
+     */
+    public void drawCentred(String text, double centreX, double y) {
+        getFont().drawString(text, centreX - getWidth(text) / 2, y);
+    }
+    /**
+     * Gets the width of a string, measuring it only the first time.
+     *
+     * @param text the string
+     * @return the width of the string
+     */
+    public double getWidth(String text) {
+        Double width = widths.get(text);
+        if (width == null) {
+            width = getFont().getWidth(text);
+            widths.put(text, width);
+        }
+        return width;
+    }
+    /**
+     * Draws a number a digit at a time, without building a string.
+     *
+     * @param value the number to draw
+     * @param x the x-coordinate of the number
+     * @param y the y-coordinate of the baseline of the number
+     * @return the width of the number
+     */
+    public double drawNumber(int value, double x, double y) {
+        double start = x;
+        long remaining = value;
+        if (remaining < 0) {
+            getFont().drawString(MINUS, x, y);
+            x += getMinusWidth();
+            remaining = -remaining;
+        }
+        int count = 0;
+        do {
+            digits[count++] = (int) (remaining % 10);
+            remaining /= 10;
+        } while (remaining > 0);
+        for (int i = count - 1; i >= 0; i--) {
+            getFont().drawString(DIGITS[digits[i]], x, y);
+            x += getDigitWidth(digits[i]);
+        }
+        return x - start;
+    }
+
+    private double getDigitWidth(int digit) {
+        if (digitWidths[digit] < 0) {
+            digitWidths[digit] = getFont().getWidth(DIGITS[digit]);
+        }
+        return digitWidths[digit];
+    }
+
+    private double getMinusWidth() {
+        if (minusWidth < 0) {
+            minusWidth = getFont().getWidth(MINUS);
+        }
+        return minusWidth;
+    }
+}
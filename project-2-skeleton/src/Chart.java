@@ -0,0 +1,395 @@
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.BufferedOutputStream;
+import java.io.BufferedInputStream;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * The Chart class holds the lanes and notes of a level.
+ * A chart can be read from the CSV source format or from the compiled binary format
+ * written by the ChartCompiler. Notes are always ordered by appearance frame, so the
+ * game can read them in order and create each note only when it appears.
+ * The compiled format is memory mapped and its note columns are read in place, so a
+ * chart opens without per-note parsing and its notes are never all copied onto the heap.
+ * A chart does not change once it is built, and all of its state is in final fields, so one
+ * chart can be shared by sessions on any number of threads.
+ *
+ * A compiled chart records the size and CRC-32 of the CSV it was compiled from, so a compiled
+ * chart that no longer matches its CSV is never played in its place.
+ *
+ * Compiled format (big-endian):
+ * - int MAGIC, int VERSION
+ * - long sourceLength, int sourceChecksum
+ * - int laneCount, then for each lane: int location, byte nameLength, name bytes (ASCII)
+ * - int noteCount, then int[noteCount] frames, byte[noteCount] lanes, byte[noteCount] types,
+ *   ordered by appearance frame
+ *
+ * Attributes:
+ * - MAGIC, VERSION: The header of the compiled format.
+ * - COMPILED_EXTENSION: The file extension of compiled charts.
+ * - laneTypes, laneLocations: The type and x-coordinate of each lane.
+ * - noteFrames, noteLanes, noteTypes: The appearance frame, lane index and NoteType code of each note.
+ * - noteCount: The number of notes in the chart.
+ * - laneNoteCounts: The number of notes in each lane, counted when the chart is built.
+ * - sourceLength, sourceChecksum: The size and CRC-32 of the CSV the chart was read or compiled from.
+ */
+public class Chart {
+    private static final int MAGIC = 0x53444348; // "SDCH"
+    private static final int VERSION = 3;
+    public static final String COMPILED_EXTENSION = ".chart";
+    private static final String CSV_EXTENSION = ".csv";
+    private final String[] laneTypes;
+    private final int[] laneLocations;
+    private final IntBuffer noteFrames;
+    private final ByteBuffer noteLanes;
+    private final ByteBuffer noteTypes;
+    private final int noteCount;
+    private final int[] laneNoteCounts;
+    private final long sourceLength;
+    private final int sourceChecksum;
+    /**
+     * Constructs a chart from its lanes and its notes, ordered by appearance frame,
+     * and counts the notes in each lane.
+     *
+     * @param laneTypes the type of each lane
+     * @param laneLocations the x-coordinate of each lane
+     * @param noteFrames the appearance frame of each note
+     * @param noteLanes the lane index of each note
+     * @param noteTypes the NoteType code of each note
+     * @param noteCount the number of notes
+     * @param sourceLength the size of the CSV the chart comes from
+     * @param sourceChecksum the CRC-32 of the CSV the chart comes from
+     */
+    private Chart(String[] laneTypes, int[] laneLocations, IntBuffer noteFrames, ByteBuffer noteLanes,
+                  ByteBuffer noteTypes, int noteCount, long sourceLength, int sourceChecksum) {
+        this.laneTypes = laneTypes;
+        this.laneLocations = laneLocations;
+        this.noteFrames = noteFrames;
+        this.noteLanes = noteLanes;
+        this.noteTypes = noteTypes;
+        this.noteCount = noteCount;
+        this.sourceLength = sourceLength;
+        this.sourceChecksum = sourceChecksum;
+        laneNoteCounts = new int[laneTypes.length];
+        for (int i = 0; i < noteCount; i++) {
+            laneNoteCounts[noteLanes.get(i)]++;
+        }
+    }
+    /**
+     * Loads a chart from a file.
+     * Compiled charts are memory mapped. For a CSV chart, the compiled chart next to it is
+     * used instead if it was compiled from the same CSV; one that does not match is reported
+     * and the CSV is read.
+     *
+     * @param filePath the path to the CSV or compiled chart
+     * @return the loaded chart
+     * @throws IOException if the chart cannot be read
+     */
+    public static Chart load(String filePath) throws IOException {
+        if (filePath.endsWith(COMPILED_EXTENSION)) {
+            return readBinary(filePath);
+        }
+        File compiled = new File(compiledPath(filePath));
+        if (compiled.isFile()) {
+            if (isCompiledFrom(compiled, new File(filePath))) {
+                return readBinary(compiled.getPath());
+            }
+            System.err.println(compiled.getPath() + " was not compiled from " + filePath + "; reading the CSV chart");
+        }
+        return readCsv(filePath);
+    }
+    /**
+     * Checks if a compiled chart was compiled from a CSV chart as it is now,
+     * by the size and CRC-32 of the CSV recorded in the compiled chart.
+     *
+     * @param compiled the compiled chart
+     * @param csv the CSV chart
+     * @return true if the compiled chart matches the CSV, false otherwise
+     * @throws IOException if either file cannot be read
+     */
+    private static boolean isCompiledFrom(File compiled, File csv) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(compiled)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION || in.readLong() != csv.length()) {
+                return false;
+            }
+            return in.readInt() == checksum(Files.readAllBytes(csv.toPath()));
+        }
+    }
+
+    private static int checksum(byte[] bytes) {
+        CRC32 crc = new CRC32();
+        crc.update(bytes);
+        return (int) crc.getValue();
+    }
+    /**
+     * Gets the path of the compiled chart for a CSV chart.
+     *
+     * @param csvFilePath the path to the CSV chart
+     * @return the path of the compiled chart
+     */
+    public static String compiledPath(String csvFilePath) {
+        String base = csvFilePath.endsWith(CSV_EXTENSION)
+                ? csvFilePath.substring(0, csvFilePath.length() - CSV_EXTENSION.length())
+                : csvFilePath;
+        return base + COMPILED_EXTENSION;
+    }
+    /**
+     * Reads a chart from a CSV file.
+     * Notes for lanes that are not declared in the file are skipped, as are blank lines and
+     * lines with fewer than three fields.
+     *
+     * @param csvFilePath the path to the CSV file
+     * @return the chart
+     * @throws IOException if the file cannot be read
+     */
+    public static Chart readCsv(String csvFilePath) throws IOException {
+        Map<String, Integer> laneIndices = new HashMap<>();
+        String[] laneTypes = new String[0];
+        int[] laneLocations = new int[0];
+        int[] frames = new int[16];
+        byte[] lanes = new byte[16];
+        byte[] types = new byte[16];
+        int count = 0;
+        byte[] source = Files.readAllBytes(Paths.get(csvFilePath));
+        try (BufferedReader br = new BufferedReader(
+                new InputStreamReader(new ByteArrayInputStream(source), StandardCharsets.UTF_8))) {
+            String textRead;
+            while ((textRead = br.readLine()) != null) {
+                String[] splitText = textRead.split(",");
+                if (splitText.length < 3) {
+                    continue;
+                }
+
+                if (splitText[0].equals("Lane")) {
+                    // reading lanes
+                    int index = laneTypes.length;
+                    laneTypes = Arrays.copyOf(laneTypes, index + 1);
+                    laneLocations = Arrays.copyOf(laneLocations, index + 1);
+                    laneTypes[index] = splitText[1];
+                    laneLocations[index] = Integer.parseInt(splitText[2]);
+                    laneIndices.put(splitText[1], index);
+                } else {
+                    // reading notes
+                    Integer lane = laneIndices.get(splitText[0]);
+                    NoteType type = lane == null ? null : NoteType.fromCsvName(splitText[1]);
+                    if (lane != null && type != null) {
+                        if (count == frames.length) {
+                            frames = Arrays.copyOf(frames, count * 2);
+                            lanes = Arrays.copyOf(lanes, count * 2);
+                            types = Arrays.copyOf(types, count * 2);
+                        }
+                        frames[count] = Integer.parseInt(splitText[2]);
+                        lanes[count] = (byte) (int) lane;
+                        types[count] = (byte) type.ordinal();
+                        count++;
+                    }
+                }
+            }
+        }
+        return sortedChart(laneTypes, laneLocations, frames, lanes, types, count, source.length, checksum(source));
+    }
+    /**
+     * Reads a chart from a compiled chart file through a memory map.
+     *
+     * @param filePath the path to the compiled chart
+     * @return the chart
+     * @throws IOException if the file cannot be read or is not a compiled chart
+     */
+    public static Chart readBinary(String filePath) throws IOException {
+        try (FileChannel channel = FileChannel.open(Paths.get(filePath), StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+                throw new IOException(filePath + " is not a compiled chart");
+            }
+            long sourceLength = buffer.getLong();
+            int sourceChecksum = buffer.getInt();
+            int laneCount = buffer.getInt();
+            String[] laneTypes = new String[laneCount];
+            int[] laneLocations = new int[laneCount];
+            for (int i = 0; i < laneCount; i++) {
+                laneLocations[i] = buffer.getInt();
+                byte[] name = new byte[buffer.get()];
+                buffer.get(name);
+                laneTypes[i] = new String(name, StandardCharsets.US_ASCII);
+            }
+            int count = buffer.getInt();
+            IntBuffer frames = buffer.slice().asIntBuffer();
+            buffer.position(buffer.position() + count * Integer.BYTES);
+            ByteBuffer lanes = buffer.slice();
+            buffer.position(buffer.position() + count);
+            ByteBuffer types = buffer.slice();
+            return new Chart(laneTypes, laneLocations, frames, lanes, types, count, sourceLength, sourceChecksum);
+        }
+    }
+    /**
+     * Writes the chart in the compiled binary format.
+     *
+     * @param filePath the path to write the compiled chart to
+     * @throws IOException if the file cannot be written
+     */
+    public void writeBinary(String filePath) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(filePath)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(sourceLength);
+            out.writeInt(sourceChecksum);
+            out.writeInt(laneTypes.length);
+            for (int i = 0; i < laneTypes.length; i++) {
+                byte[] name = laneTypes[i].getBytes(StandardCharsets.US_ASCII);
+                out.writeInt(laneLocations[i]);
+                out.writeByte(name.length);
+                out.write(name);
+            }
+            out.writeInt(noteCount);
+            for (int i = 0; i < noteCount; i++) {
+                out.writeInt(noteFrames.get(i));
+            }
+            for (int i = 0; i < noteCount; i++) {
+                out.writeByte(noteLanes.get(i));
+            }
+            for (int i = 0; i < noteCount; i++) {
+                out.writeByte(noteTypes.get(i));
+            }
+        }
+    }
+    /**
+     * Writes the chart in the CSV source format.
+     *
+     * @param csvFilePath the path to write the CSV file to
+     * @throws IOException if the file cannot be written
+     */
+    public void writeCsv(String csvFilePath) throws IOException {
+        try (PrintWriter out = new PrintWriter(csvFilePath, StandardCharsets.US_ASCII)) {
+            for (int i = 0; i < laneTypes.length; i++) {
+                out.print("Lane," + laneTypes[i] + "," + laneLocations[i] + "\n");
+            }
+            for (int i = 0; i < noteCount; i++) {
+                out.print(laneTypes[getNoteLane(i)] + "," + getNoteType(i).getCsvName() + ","
+                        + getNoteFrame(i) + "\n");
+            }
+        }
+    }
+    /**
+     * Builds a chart from notes in any order, ordering them by appearance frame.
+     * Notes with the same appearance frame keep their order from the file.
+     *
+     * @param laneTypes the type of each lane
+     * @param laneLocations the x-coordinate of each lane
+     * @param frames the appearance frame of each note
+     * @param lanes the lane index of each note
+     * @param types the NoteType code of each note
+     * @param count the number of notes
+     * @param sourceLength the size of the CSV the notes were read from
+     * @param sourceChecksum the CRC-32 of the CSV the notes were read from
+     * @return the chart
+     */
+    private static Chart sortedChart(String[] laneTypes, int[] laneLocations, int[] frames, byte[] lanes,
+                                     byte[] types, int count, long sourceLength, int sourceChecksum) {
+        Integer[] order = new Integer[count];
+        for (int i = 0; i < count; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, Comparator.comparingInt(i -> frames[i]));
+        int[] sortedFrames = new int[count];
+        byte[] sortedLanes = new byte[count];
+        byte[] sortedTypes = new byte[count];
+        for (int i = 0; i < count; i++) {
+            sortedFrames[i] = frames[order[i]];
+            sortedLanes[i] = lanes[order[i]];
+            sortedTypes[i] = types[order[i]];
+        }
+        return new Chart(laneTypes, laneLocations, IntBuffer.wrap(sortedFrames), ByteBuffer.wrap(sortedLanes),
+                ByteBuffer.wrap(sortedTypes), count, sourceLength, sourceChecksum);
+    }
+    /**
+     * Gets the number of lanes in the chart.
+     *
+     * @return the number of lanes
+     */
+    public int getLaneCount() {
+        return laneTypes.length;
+    }
+    /**
+     * Gets the type of a lane.
+     *
+     * @param lane the index of the lane
+     * @return the type of the lane
+     */
+    public String getLaneType(int lane) {
+        return laneTypes[lane];
+    }
+    /**
+     * Gets the x-coordinate of a lane.
+     *
+     * @param lane the index of the lane
+     * @return the x-coordinate of the lane
+     */
+    public int getLaneLocation(int lane) {
+        return laneLocations[lane];
+    }
+    /**
+     * Gets the number of notes in a lane.
+     *
+     * @param lane the index of the lane
+     * @return the number of notes in the lane
+     */
+    public int getLaneNoteCount(int lane) {
+        return laneNoteCounts[lane];
+    }
+    /**
+     * Gets the number of notes in the chart.
+     *
+     * @return the number of notes
+     */
+    public int getNoteCount() {
+        return noteCount;
+    }
+    /**
+     * Gets the appearance frame of a note.
+     *
+     * @param note the index of the note
+     * @return the appearance frame of the note
+     */
+    public int getNoteFrame(int note) {
+        return noteFrames.get(note);
+    }
+    /**
+     * Gets the lane index of a note.
+     *
+     * @param note the index of the note
+     * @return the index of the lane of the note
+     */
+    public int getNoteLane(int note) {
+        return noteLanes.get(note);
+    }
+    /**
+     * Gets the type of a note.
+     *
+     * @param note the index of the note
+     * @return the type of the note
+     */
+    public NoteType getNoteType(int note) {
+        return NoteType.fromCode(noteTypes.get(note));
+    }
+}
@@ -0,0 +1,107 @@
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The ChartCompiler class compiles CSV charts into the binary chart format read by Chart.
+ *
+ * Usage:
+ * - ChartCompiler chart.csv...: Compiles each CSV chart into a .chart file next to it.
+ * - ChartCompiler --decompile chart.chart out.csv: Writes a compiled chart back out as CSV.
+ * - ChartCompiler --verify chart.csv...: Checks that each CSV chart round-trips through the compiled format.
+ */
+public class ChartCompiler {
+    private ChartCompiler() {
+    }
+    /**
+     * Compiles a CSV chart into a .chart file next to it.
+     *
+     * @param csvFilePath the path to the CSV chart
+     * @return the path of the compiled chart
+     * @throws IOException if the chart cannot be read or written
+     */
+    public static String compile(String csvFilePath) throws IOException {
+        String compiledPath = Chart.compiledPath(csvFilePath);
+        Chart.readCsv(csvFilePath).writeBinary(compiledPath);
+        return compiledPath;
+    }
+    /**
+     * Checks that a CSV chart round-trips through the compiled format.
+     * The chart is compiled, read back through the memory map and written out as CSV,
+     * which must match the CSV written directly from the source. Both must contain the
+     * same lines as the source, which may list its notes in a different order.
+     * The source is also read with a blank line, a one-field line and a trailing line added,
+     * which must be skipped and give the same chart.
+     *
+     * @param csvFilePath the path to the CSV chart
+     * @return true if the chart round-trips, false otherwise
+     * @throws IOException if the chart cannot be read or written
+     */
+    public static boolean verify(String csvFilePath) throws IOException {
+        File compiled = File.createTempFile("chart", Chart.COMPILED_EXTENSION);
+        File expected = File.createTempFile("expected", ".csv");
+        File actual = File.createTempFile("actual", ".csv");
+        File padded = File.createTempFile("padded", ".csv");
+        File paddedActual = File.createTempFile("paddedActual", ".csv");
+        try {
+            Chart source = Chart.readCsv(csvFilePath);
+            source.writeBinary(compiled.getPath());
+            source.writeCsv(expected.getPath());
+            Chart.readBinary(compiled.getPath()).writeCsv(actual.getPath());
+            String sourceText = new String(Files.readAllBytes(Paths.get(csvFilePath)), StandardCharsets.UTF_8);
+            Files.write(padded.toPath(), ("\n" + sourceText + "\nLeft\n\nLane,Up").getBytes(StandardCharsets.UTF_8));
+            Chart.readCsv(padded.getPath()).writeCsv(paddedActual.getPath());
+            List<String> expectedLines = Files.readAllLines(expected.toPath());
+            List<String> sourceLines = Files.readAllLines(Paths.get(csvFilePath));
+            sourceLines.removeIf(String::isEmpty);
+            boolean roundTrips = expectedLines.equals(Files.readAllLines(actual.toPath()))
+                    && expectedLines.equals(Files.readAllLines(paddedActual.toPath()));
+            Collections.sort(expectedLines);
+            Collections.sort(sourceLines);
+            return roundTrips && expectedLines.equals(sourceLines);
+        } finally {
+            compiled.delete();
+            expected.delete();
+            actual.delete();
+            padded.delete();
+            paddedActual.delete();
+        }
+    }
+    /**
+     * The entry point for the chart compiler.
+     *
+     * @param args command-line arguments
+     */
+    public static void main(String[] args) {
+        try {
+            if (args.length == 3 && args[0].equals("--decompile")) {
+                Chart.readBinary(args[1]).writeCsv(args[2]);
+            } else if (args.length > 1 && args[0].equals("--verify")) {
+                boolean allPassed = true;
+                for (int i = 1; i < args.length; i++) {
+                    boolean passed = verify(args[i]);
+                    allPassed &= passed;
+                    System.out.println((passed ? "OK   " : "FAIL ") + args[i]);
+                }
+                if (!allPassed) {
+                    System.exit(1);
+                }
+            } else if (args.length > 0 && !args[0].startsWith("--")) {
+                for (String csvFilePath : args) {
+                    System.out.println(csvFilePath + " -> " + compile(csvFilePath));
+                }
+            } else {
+                System.err.println("Usage: ChartCompiler chart.csv... | --decompile chart.chart out.csv"
+                        + " | --verify chart.csv...");
+                System.exit(-1);
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+            System.exit(-1);
+        }
+    }
+}
@@ -0,0 +1,81 @@
+/**
+ * The CountingSpriteRenderer class is a software renderer that counts what would be drawn.
+ * It needs no window, so the draw calls of a frame can be checked headlessly; see DrawCallProbe.
+ * A renderer that could draw a whole layer at once from one texture would issue one draw call
+ * per run of sprites from the same sheet within a layer, and bind a texture whenever the sheet
+ * changes; those are the counts kept here, next to the number of sprites, which is the number
+ * of draw calls when each sprite is drawn on its own.
+ *
+ * Attributes:
+ * - sprites: The number of sprites drawn.
+ * - drawCalls: The number of batched draw calls.
+ * - textureBinds: The number of times the sheet being drawn from changed.
+ * - boundSheet: The path of the sheet last drawn from, or null if none.
+ * - inRun: A boolean indicating whether the current layer has an open run of sprites.
+ */
+public class CountingSpriteRenderer implements SpriteRenderer {
+    private long sprites = 0;
+    private long drawCalls = 0;
+    private long textureBinds = 0;
+    private String boundSheet = null;
+    private boolean inRun = false;
+
+    @Override
+    public void beginLayer(SpriteBatch.Layer layer) {
+        inRun = false;
+    }
+
+    @Override
+    public void draw(Texture texture, double x, double y, double rotation) {
+        String sheet = texture.getSheetPath();
+        if (!sheet.equals(boundSheet)) {
+            boundSheet = sheet;
+            textureBinds++;
+            inRun = false;
+        }
+        if (!inRun) {
+            drawCalls++;
+            inRun = true;
+        }
+        sprites++;
+    }
+
+    @Override
+    public void endLayer() {
+        inRun = false;
+    }
+    /**
+     * Gets the number of sprites drawn.
+     *
+     * @return the number of sprites
+     */
+    public long getSprites() {
+        return sprites;
+    }
+    /**
+     * Gets the number of batched draw calls.
+     *
+     * @return the number of draw calls
+     */
+    public long getDrawCalls() {
+        return drawCalls;
+    }
+    /**
+     * Gets the number of times the sheet being drawn from changed.
+     *
+     * @return the number of texture binds
+     */
+    public long getTextureBinds() {
+        return textureBinds;
+    }
+    /**
+     * Sets all the counts back to 0.
+     */
+    public void reset() {
+        sprites = 0;
+        drawCalls = 0;
+        textureBinds = 0;
+        boundSheet = null;
+        inRun = false;
+    }
+}
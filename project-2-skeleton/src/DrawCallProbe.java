@@ -0,0 +1,68 @@
+/**
+ * The DrawCallProbe class counts the draw calls of a play headlessly, with and without the TextureAtlas.
+ * It plays a chart with enemies enabled, draws every frame through a CountingSpriteRenderer,
+ * and prints the average sprites, batched draw calls and texture binds per frame.
+ * Without the atlas each note type is its own texture; with it, a frame should need at most
+ * one draw call per layer, and the whole play binds one texture. The probe checks the atlas
+ * play and exits with status 1 if it bound any other number of textures.
+ *
+ * Usage: DrawCallProbe chart [script.txt] [frames]
+ * - chart: The CSV or compiled chart to play.
+ * - script.txt: The key script to replay (see ScriptedKeyInput), or "-" for no input.
+ * - frames: The number of frames to play; defaults to 3000.
+ */
+public class DrawCallProbe {
+    private DrawCallProbe() {
+    }
+    /**
+     * The entry point for the probe.
+     *
+     * @param args command-line arguments
+     */
+    public static void main(String[] args) throws Exception {
+        if (args.length < 1) {
+            System.err.println("Usage: DrawCallProbe chart [script.txt] [frames]");
+            System.exit(-1);
+        }
+        Chart chart = Chart.load(args[0]);
+        String script = args.length > 1 && !args[1].equals("-") ? args[1] : null;
+        int frames = args.length > 2 ? Integer.parseInt(args[2]) : 3000;
+
+        measure("separate textures", chart, script, frames);
+        TextureCache.setAtlas(TextureAtlas.pack(TextureAtlas.SPRITES));
+        CountingSpriteRenderer atlas = measure("texture atlas", chart, script, frames);
+        TextureCache.setAtlas(null);
+
+        boolean passed = atlas.getTextureBinds() == 1;
+        System.out.println((passed ? "OK   " : "FAIL ") + "texture atlas play binds "
+                + atlas.getTextureBinds() + " texture(s)");
+        if (!passed) {
+            System.exit(1);
+        }
+    }
+    /**
+     * Plays a chart, drawing each frame through a CountingSpriteRenderer, and prints the counts.
+     *
+     * @param label the label of the line printed
+     * @param chart the chart to play
+     * @param script the path of the key script, or null for no input
+     * @param frames the number of frames to play
+     * @return the renderer, holding the counts of the whole play
+     */
+    private static CountingSpriteRenderer measure(String label, Chart chart, String script, int frames) throws Exception {
+        ScriptedKeyInput input = script != null ? ScriptedKeyInput.readScript(script) : new ScriptedKeyInput();
+        CountingSpriteRenderer renderer = new CountingSpriteRenderer();
+        GameSession session = new GameSession(chart, true, 0);
+        session.setRenderer(renderer);
+        for (int i = 0; i < frames; i++) {
+            input.advanceTo(session.getCurrFrame() + 1);
+            session.update(input);
+            session.drawSprites(0);
+        }
+        System.out.printf("%s: %.1f sprites, %.2f draw calls, %.2f texture binds per frame%n", label,
+                (double) renderer.getSprites() / frames, (double) renderer.getDrawCalls() / frames,
+                (double) renderer.getTextureBinds() / frames);
+        session.dispose();
+        return renderer;
+    }
+}
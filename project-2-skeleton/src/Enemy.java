@@ -1,17 +1,18 @@
 import bagel.*;
-import bagel.util.Point;
-import bagel.util.Vector2;
-import java.util.Random;
+import java.util.SplittableRandom;
 /**
  * The Enemy class represents an enemy in the game.
  * Enemies move in a straight line and are removed if hit by an arrow.
+ * Enemies are reused through a Pool: each one is created once and placed by spawn each
+ * time it is handed out.
+ * Its position and direction are plain coordinates moved in place, so updating an
+ * enemy does not allocate.
  * 
  * Attributes:
  * - MIN_X, MAX_X, MIN_Y, MAX_Y: The minimum and maximum x and y coordinates for the enemy's position.
- * - speed: The speed of the enemy.
- * - image: The image of the enemy.
- * - position: The current position of the enemy.
- * - direction: The direction of the enemy.
+ * - texture: The shared texture of the enemy.
+ * - x, y: The current position of the enemy.
+ * - dx, dy: The distance the enemy moves each frame.
  * - COLLISION: The collision radius of the enemy.
  * - isRemoved: A boolean indicating whether the enemy has been marked for removal.
  */
@@ -20,41 +21,59 @@ public class Enemy {
     private static final int MAX_X = 900;
     private static final int MIN_Y = 100;
     private static final int MAX_Y = 500;
-    private static int speed = 1;
-    private final Image image = new Image("res/enemy.png");
-    private Point position;
-    private Vector2 direction;
-    private static final int COLLISION = 104;
+    private final Texture texture = TextureCache.acquire("res/enemy.png");
+    private double x;
+    private double y;
+    private double dx;
+    private double dy;
+    static final int COLLISION = 104;
     private boolean isRemoved = false;
     /**
-     * Constructs an Enemy with a random position and direction.
+     * Places the enemy at a random position with a random direction.
+     * The position and direction are drawn from the session's random number generator,
+     * so sessions with the same seed spawn the same enemies.
+     *
+     * @param speed the speed of the enemy
+     * @param random the random number generator of the session
      */
-    public Enemy() {
-        Random random = new Random();
-        int x = random.nextInt(MAX_X - MIN_X + 1) + MIN_X;
-        int y = random.nextInt(MAX_Y - MIN_Y + 1) + MIN_Y;
-        position = new Point(x, y);
-        direction = new Vector2(random.nextBoolean() ? speed : -speed, 0);
+    public void spawn(int speed, SplittableRandom random) {
+        isRemoved = false;
+        x = random.nextInt(MAX_X - MIN_X + 1) + MIN_X;
+        y = random.nextInt(MAX_Y - MIN_Y + 1) + MIN_Y;
+        dx = random.nextBoolean() ? speed : -speed;
+        dy = 0;
     }
     /**
      * Updates the position of the enemy and checks for collisions with the window edges.
      */
     public void update() {
-        position = position.asVector().add(direction).asPoint();
-        if (position.x <= MIN_X || position.x >= MAX_X) {
-            direction = direction.mul(-1);
+        x += dx;
+        y += dy;
+        if (x <= MIN_X || x >= MAX_X) {
+            dx = -dx;
+            dy = -dy;
         }
-        image.draw(position.x, position.y);
     }
     /**
-     * Checks if the enemy collides with a note.
+     * Draws the enemy part way to its next position.
      *
-     * @param note the note to check collision with
+     * @param batch the sprite batch of the frame
+     * @param alpha how far the simulation is through the next frame, from 0 to 1
+     */
+    public void draw(SpriteBatch batch, double alpha) {
+        batch.add(SpriteBatch.Layer.ENEMIES, texture, x + dx * alpha, y + dy * alpha);
+    }
+    /**
+     * Checks if the enemy collides with a note centred at a given position.
+     *
+     * @param x the x-coordinate of the centre of the note
+     * @param y the y-coordinate of the centre of the note
      * @return true if the enemy collides with the note, false otherwise
      */
-    public boolean collidesWith(Note note) {
-        Point notePosition = note.getPosition(note.getX());
-        return position.distanceTo(notePosition) <= COLLISION;
+    public boolean collidesWith(double x, double y) {
+        double offsetX = this.x - x;
+        double offsetY = this.y - y;
+        return offsetX * offsetX + offsetY * offsetY <= COLLISION * COLLISION;
     }
     /**
      * Marks the enemy for removal.
@@ -62,6 +81,13 @@ public class Enemy {
     public void remove() {
         isRemoved = true;
     }
+    /**
+     * Releases the shared texture of the enemy when its pool is disposed.
+     * The enemy must not be updated after it is released.
+     */
+    public void release() {
+        TextureCache.release(texture);
+    }
     /**
      * Checks if the enemy is marked for removal.
      *
@@ -71,26 +97,20 @@ public class Enemy {
         return isRemoved;
     }
     /**
-     * Gets the current position of the enemy.
+     * Gets the x-coordinate of the enemy.
      *
-     * @return the current position of the enemy
-     */
-    public Point getPosition() {
-        return this.position;
-    }
-    /**
-     * Increases the speed of the enemy by 1.
+     * @return the x-coordinate of the enemy
      */
-    public static void increaseSpeed() {
-        speed++;
+    public double getX() {
+        return x;
     }
     /**
-     * Decreases the speed of the enemy by 1.
+     * Gets the y-coordinate of the enemy.
+     *
+     * @return the y-coordinate of the enemy
      */
-    public static void decreaseSpeed() {
-        if (speed > 1) {
-            speed--;
-        }
+    public double getY() {
+        return y;
     }
 
 }
\ No newline at end of file
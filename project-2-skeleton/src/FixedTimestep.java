@@ -0,0 +1,95 @@
+/**
+ * The FixedTimestep class decides how many simulation ticks to run on each rendered frame.
+ * The simulation always advances in ticks of a fixed length, the rate charts are written for,
+ * however fast the display refreshes. Real time is added to an accumulator each frame and
+ * whole ticks are taken out of it, so a 240 Hz display runs a tick every fourth frame and a
+ * dropped frame is made up with extra ticks on the next one. What is left in the accumulator
+ * is how far the next tick has progressed, which the renderer uses to place moving sprites
+ * between ticks.
+ * A timestep driven by the wall clock drops a stall longer than a few ticks rather than run
+ * the simulation in a burst. A timestep driven by the song's clock must stay with the song,
+ * so it keeps the backlog and works it off a few ticks per frame until it has caught up.
+ *
+ * Attributes:
+ * - TICKS_PER_SECOND: The simulation rate, which is the frame rate charts are written for.
+ * - TICK_NANOS: The length of a tick, in nanoseconds.
+ * - MAX_TICKS_PER_FRAME: The most ticks run on one frame; a longer stall is dropped, or caught up
+ *   over the following frames.
+ * - catchUp: A boolean indicating whether a stall is caught up rather than dropped.
+ * - lastTime: The time of the previous frame, or -1 before the first frame.
+ * - accumulator: The time not yet simulated, in nanoseconds.
+ */
+public class FixedTimestep {
+    public static final int TICKS_PER_SECOND = 60;
+    private static final long TICK_NANOS = 1_000_000_000L / TICKS_PER_SECOND;
+    private static final int MAX_TICKS_PER_FRAME = 4;
+    private final boolean catchUp;
+    private long lastTime = -1;
+    private long accumulator = 0;
+    /**
+     * Constructs a FixedTimestep driven by the wall clock, which drops long stalls.
+     */
+    public FixedTimestep() {
+        this(false);
+    }
+    /**
+     * Constructs a FixedTimestep.
+     *
+     * @param catchUp true to catch up long stalls over the following frames, as a timestep
+     *                driven by the song's clock must; false to drop them
+     */
+    public FixedTimestep(boolean catchUp) {
+        this.catchUp = catchUp;
+    }
+    /**
+     * Adds the time since the previous frame and takes out the ticks to run on this frame.
+     * The first frame after a reset always runs exactly one tick.
+     *
+     * @param now the current time, in nanoseconds
+     * @return the number of ticks to run
+     */
+    public int advance(long now) {
+        if (lastTime < 0) {
+            lastTime = now;
+            accumulator = 0;
+            return 1;
+        }
+        accumulator += now - lastTime;
+        lastTime = now;
+        long ticks = accumulator / TICK_NANOS;
+        if (ticks > MAX_TICKS_PER_FRAME) {
+            // the rest of the backlog is left for the next frames, or dropped
+            accumulator = catchUp ? accumulator - MAX_TICKS_PER_FRAME * TICK_NANOS : 0;
+            return MAX_TICKS_PER_FRAME;
+        }
+        accumulator -= ticks * TICK_NANOS;
+        return (int) ticks;
+    }
+    /**
+     * Gets the time a tick run on the current frame stands for. The last tick of the frame is
+     * as far behind the current time as the accumulator, and each earlier one a tick further.
+     *
+     * @param tick the index of the tick among those run on the frame, from 0
+     * @param ticks the number of ticks run on the frame
+     * @return the time of the tick, on the same clock as advance
+     */
+    public long getTickTime(int tick, int ticks) {
+        return lastTime - accumulator - (ticks - 1 - tick) * TICK_NANOS;
+    }
+    /**
+     * Gets how far the simulation has progressed towards its next tick.
+     * While a stall is being caught up, sprites are drawn at the next tick.
+     *
+     * @return the fraction of a tick, from 0 to 1
+     */
+    public double getAlpha() {
+        return Math.min(1.0, (double) accumulator / TICK_NANOS);
+    }
+    /**
+     * Restarts the timestep, for example when a level starts.
+     */
+    public void reset() {
+        lastTime = -1;
+        accumulator = 0;
+    }
+}
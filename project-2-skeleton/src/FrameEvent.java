@@ -0,0 +1,47 @@
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * The FrameEvent class is the JFR event FrameProfiler commits for each frame.
+ * It is only recorded while a flight recording with the event enabled is running,
+ * for example with -XX:StartFlightRecording, and costs nothing otherwise.
+ *
+ * Attributes:
+ * - frame: The number of the frame.
+ * - lanes, guardian, enemies, collisions, accuracy, finishCheck, draw, total: The time spent in each section.
+ */
+@Name("shadowdance.Frame")
+@Label("Frame")
+@Category("Shadow Dance")
+@Description("Time spent in each section of a frame")
+public class FrameEvent extends jdk.jfr.Event {
+    @Label("Frame")
+    long frame;
+    @Label("Lanes")
+    @Timespan
+    long lanes;
+    @Label("Guardian")
+    @Timespan
+    long guardian;
+    @Label("Enemies")
+    @Timespan
+    long enemies;
+    @Label("Collisions")
+    @Timespan
+    long collisions;
+    @Label("Accuracy")
+    @Timespan
+    long accuracy;
+    @Label("Finish Check")
+    @Timespan
+    long finishCheck;
+    @Label("Draw")
+    @Timespan
+    long draw;
+    @Label("Total")
+    @Timespan
+    long total;
+}
@@ -0,0 +1,196 @@
+import bagel.*;
+
+/**
+ * The FrameProfiler class times the sections of each frame.
+ * Sections are timed with System.nanoTime and recorded into a LatencyHistogram per section,
+ * so timing a section never allocates. At the end of each frame the times are committed as a
+ * FrameEvent for JFR, if a recording has the event enabled, and every reportFrames frames the
+ * percentiles can be printed as a log line.
+ * The profiler can also draw its latest percentiles as an on-screen overlay; the text of the
+ * overlay is only built when it is drawn, so a profiler whose overlay is hidden does not format strings.
+ * The DISABLED profiler does no timing at all, so code can be instrumented unconditionally.
+ *
+ * Attributes:
+ * - SECTIONS: The sections, in order.
+ * - DISABLED: A profiler that does nothing, the default for headless sessions.
+ * - OVERLAY_X, OVERLAY_Y, OVERLAY_SPACING, OVERLAY_FONT_SIZE: Constants for positioning the overlay.
+ * - enabled: A boolean indicating whether the profiler times anything.
+ * - reportFrames: The number of frames between log lines, or 0 for no log lines.
+ * - histograms: The histogram of each section's times since the last report.
+ * - frameNanos: The time spent in each section during the current frame.
+ * - frames: The number of frames profiled.
+ * - event: The FrameEvent reused for every frame, so committing a frame does not allocate.
+ * - overlayValues: The p50, p99 and max of each section at the last report, in nanoseconds.
+ * - overlayLines: The text of the overlay, built from overlayValues when it is drawn.
+ * - overlayStale: A boolean indicating whether overlayLines is older than overlayValues.
+ * - overlayFont: The font of the overlay, loaded on first use.
+ */
+public class FrameProfiler {
+    /**
+     * The sections of a frame that are timed.
+     */
+    public enum Section {
+        LANES, GUARDIAN, ENEMIES, COLLISIONS, ACCURACY, FINISH_CHECK, DRAW, FRAME
+    }
+    private static final Section[] SECTIONS = Section.values();
+    public static final FrameProfiler DISABLED = new FrameProfiler(false, 0);
+    private static final int OVERLAY_X = 700;
+    private static final int OVERLAY_Y = 30;
+    private static final int OVERLAY_SPACING = 18;
+    private static final int OVERLAY_FONT_SIZE = 12;
+    private final boolean enabled;
+    private final int reportFrames;
+    private final LatencyHistogram[] histograms = new LatencyHistogram[SECTIONS.length];
+    private final long[] frameNanos = new long[SECTIONS.length];
+    private long frames = 0;
+    private final FrameEvent event = new FrameEvent();
+    private final long[] overlayValues = new long[SECTIONS.length * 3];
+    private String[] overlayLines = new String[0];
+    private boolean overlayStale = false;
+    private Font overlayFont;
+    /**
+     * Constructs an enabled FrameProfiler.
+     *
+     * @param reportFrames the number of frames between log lines, or 0 for no log lines;
+     *                     the overlay is also refreshed this often, or once a second if 0
+     */
+    public FrameProfiler(int reportFrames) {
+        this(true, reportFrames);
+    }
+
+    private FrameProfiler(boolean enabled, int reportFrames) {
+        this.enabled = enabled;
+        this.reportFrames = reportFrames;
+        for (int i = 0; i < SECTIONS.length; i++) {
+            histograms[i] = new LatencyHistogram();
+        }
+    }
+    /**
+     * Starts timing a section.
+     *
+     * @return the start time, to pass to stop
+     */
+    public long start() {
+        return enabled ? System.nanoTime() : 0;
+    }
+    /**
+     * Stops timing a section and records its time.
+     * A section may be timed more than once in a frame; its times are added up.
+     *
+     * @param section the section
+     * @param start the start time returned by start
+     */
+    public void stop(Section section, long start) {
+        if (enabled) {
+            frameNanos[section.ordinal()] += System.nanoTime() - start;
+        }
+    }
+    /**
+     * Ends the current frame.
+     * Records each section's time for the frame, commits the frame's FrameEvent, and prints
+     * a log line and keeps the percentiles for the overlay when a report is due.
+     */
+    public void endFrame() {
+        if (!enabled) {
+            return;
+        }
+        for (int i = 0; i < SECTIONS.length; i++) {
+            histograms[i].record(frameNanos[i]);
+        }
+        commitEvent();
+        for (int i = 0; i < SECTIONS.length; i++) {
+            frameNanos[i] = 0;
+        }
+        frames++;
+        int interval = reportFrames > 0 ? reportFrames : 60;
+        if (frames % interval == 0) {
+            for (int i = 0; i < SECTIONS.length; i++) {
+                overlayValues[i * 3] = histograms[i].getValueAtPercentile(50);
+                overlayValues[i * 3 + 1] = histograms[i].getValueAtPercentile(99);
+                overlayValues[i * 3 + 2] = histograms[i].getMax();
+            }
+            overlayStale = true;
+            if (reportFrames > 0) {
+                System.out.println(report());
+            }
+            for (LatencyHistogram histogram : histograms) {
+                histogram.reset();
+            }
+        }
+    }
+
+    private void commitEvent() {
+        // the event is reused, so its start time is reset for each frame
+        event.begin();
+        if (event.shouldCommit()) {
+            event.frame = frames;
+            event.lanes = frameNanos[Section.LANES.ordinal()];
+            event.guardian = frameNanos[Section.GUARDIAN.ordinal()];
+            event.enemies = frameNanos[Section.ENEMIES.ordinal()];
+            event.collisions = frameNanos[Section.COLLISIONS.ordinal()];
+            event.accuracy = frameNanos[Section.ACCURACY.ordinal()];
+            event.finishCheck = frameNanos[Section.FINISH_CHECK.ordinal()];
+            event.draw = frameNanos[Section.DRAW.ordinal()];
+            event.total = frameNanos[Section.FRAME.ordinal()];
+            event.commit();
+        }
+    }
+    /**
+     * Builds a log line of the percentiles of each section since the last report.
+     *
+     * @return the log line
+     */
+    public String report() {
+        StringBuilder line = new StringBuilder("frame ").append(frames).append(" (ms p50/p99/max):");
+        for (int i = 0; i < SECTIONS.length; i++) {
+            line.append(' ').append(SECTIONS[i].name().toLowerCase()).append(' ').append(format(histograms[i]));
+        }
+        return line.toString();
+    }
+
+    private String[] buildLines() {
+        String[] lines = new String[SECTIONS.length + 1];
+        lines[0] = "ms       p50    p99    max";
+        for (int i = 0; i < SECTIONS.length; i++) {
+            lines[i + 1] = String.format("%-12s %s", SECTIONS[i].name().toLowerCase(),
+                    format(overlayValues[i * 3], overlayValues[i * 3 + 1], overlayValues[i * 3 + 2]));
+        }
+        return lines;
+    }
+
+    private static String format(LatencyHistogram histogram) {
+        return format(histogram.getValueAtPercentile(50), histogram.getValueAtPercentile(99), histogram.getMax());
+    }
+
+    private static String format(long p50, long p99, long max) {
+        return String.format("%.3f/%.3f/%.3f", p50 / 1e6, p99 / 1e6, max / 1e6);
+    }
+    /**
+     * Draws the percentiles of the last report period as an overlay.
+     * The text is only rebuilt when a report has come in since it was last drawn.
+     */
+    public void drawOverlay() {
+        if (!enabled) {
+            return;
+        }
+        if (overlayStale) {
+            overlayLines = buildLines();
+            overlayStale = false;
+        }
+        if (overlayFont == null) {
+            overlayFont = new Font(ShadowDance.FONT_FILE, OVERLAY_FONT_SIZE);
+        }
+        for (int i = 0; i < overlayLines.length; i++) {
+            overlayFont.drawString(overlayLines[i], OVERLAY_X, OVERLAY_Y + i * OVERLAY_SPACING);
+        }
+    }
+    /**
+     * Gets the histogram of a section's times since the last report.
+     *
+     * @param section the section
+     * @return the histogram
+     */
+    public LatencyHistogram getHistogram(Section section) {
+        return histograms[section.ordinal()];
+    }
+}
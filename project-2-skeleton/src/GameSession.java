@@ -0,0 +1,395 @@
+import java.util.ArrayList;
+import java.util.SplittableRandom;
+
+/**
+ * The GameSession class is the simulation core of a single play of a level.
+ * It owns the lanes, notes, enemies and the guardian, and advances them one frame at a time
+ * from a KeyInput. It never draws during update, so a chart can be simulated headlessly;
+ * the bagel front end draws the session separately with draw.
+ * All of a play's state belongs to its GameSession, so any number of sessions can run
+ * in one JVM, on different threads; see SessionScheduler.
+ * Enemies are placed by a random number generator seeded per session, so two sessions
+ * with the same chart, seed and input play out identically.
+ * Notes are read from the chart in order of appearance and only created on the frame they
+ * appear, so memory and per-frame work depend on the notes on screen, not the chart length.
+ *
+ * Attributes:
+ * - ENEMY_CREATION_FRAME: The frame interval at which a new enemy is created.
+ * - MAX_ENEMIES: The largest number of enemies on screen at once. An enemy spawns every
+ *   ENEMY_CREATION_FRAME frames and only arrows remove them, so a play that never shoots reaches
+ *   the cap after 64 * 600 frames, about ten minutes at 60 frames a second; a spawn due while
+ *   every enemy is in use is dropped and counted in droppedSpawns.
+ * - WINDOW_WIDTH, WINDOW_HEIGHT: The size of the window the enemy grid covers.
+ * - chart: The chart being played.
+ * - lanesByIndex: The lanes, indexed by their index in the chart.
+ * - nextNote: The index in the chart of the next note to create.
+ * - accuracy: The Accuracy object for the session.
+ * - lanes, specialLanes: The lanes in the session.
+ * - enemies: The pool of enemies in the session, empty when enemies are disabled.
+ * - enemyGrid: The grid of the enemies' positions, rebuilt each frame to find the notes they eat.
+ * - enemyXs, enemyYs: The enemies' positions, reused each frame to build the grid.
+ * - speeds: The SpeedController for the session, which holds its speeds and score multiplier.
+ * - guardian: The Guardian object for the session.
+ * - enemiesEnabled: A boolean indicating whether enemies and the guardian take part.
+ * - seed: The seed of the session's random number generator.
+ * - random: The random number generator that places enemies.
+ * - score: The current score.
+ * - currFrame: The current frame.
+ * - droppedSpawns: The number of enemy spawns dropped because every enemy was in use.
+ * - profiler: The FrameProfiler that times the sections of each frame.
+ * - batch: The SpriteBatch the sprites of each frame are collected in.
+ * - renderer: The SpriteRenderer the batch is drawn with.
+ */
+public class GameSession {
+    private static final int ENEMY_CREATION_FRAME = 600;
+    private static final int MAX_ENEMIES = 64;
+    private static final int WINDOW_WIDTH = 1024;
+    private static final int WINDOW_HEIGHT = 768;
+    private final Chart chart;
+    private Lane[] lanesByIndex;
+    private int nextNote = 0;
+    private final Accuracy accuracy = new Accuracy();
+    private final ArrayList<Lane> lanes = new ArrayList<>();
+    private final ArrayList<Lane> specialLanes = new ArrayList<>();
+    private final Pool<Enemy> enemies;
+    private final SpatialGrid enemyGrid = new SpatialGrid(WINDOW_WIDTH, WINDOW_HEIGHT, Enemy.COLLISION);
+    private double[] enemyXs = new double[0];
+    private double[] enemyYs = new double[0];
+    private final SpeedController speeds = new SpeedController();
+    private final Guardian guardian;
+    private final boolean enemiesEnabled;
+    private final long seed;
+    private final SplittableRandom random;
+    private int score = 0;
+    private int currFrame = 0;
+    private int droppedSpawns = 0;
+    private FrameProfiler profiler = FrameProfiler.DISABLED;
+    private final SpriteBatch batch = new SpriteBatch();
+    private SpriteRenderer renderer = new BagelSpriteRenderer();
+    /**
+     * Constructs a GameSession for a given chart with a fresh random seed.
+     *
+     * @param chartFilePath the path to the CSV or compiled chart
+     * @param enemiesEnabled true if enemies and the guardian take part, false otherwise
+     */
+    public GameSession(String chartFilePath, boolean enemiesEnabled) {
+        this(loadChart(chartFilePath), enemiesEnabled, new SplittableRandom().nextLong());
+    }
+    /**
+     * Constructs a GameSession for a chart that has already been loaded.
+     * Charts are only read by sessions, so one chart can be shared by many sessions.
+     *
+     * @param chart the chart to play
+     * @param enemiesEnabled true if enemies and the guardian take part, false otherwise
+     * @param seed the seed of the random number generator that places enemies
+     */
+    public GameSession(Chart chart, boolean enemiesEnabled, long seed) {
+        this.chart = chart;
+        this.enemiesEnabled = enemiesEnabled;
+        this.seed = seed;
+        this.random = new SplittableRandom(seed);
+        this.enemies = new Pool<>(enemiesEnabled ? MAX_ENEMIES : 0, Enemy::new);
+        this.guardian = enemiesEnabled ? new Guardian(speeds) : new Guardian(speeds, 0);
+        createLanes();
+    }
+    /**
+     * Loads a chart, which may be a CSV file or a compiled chart.
+     *
+     * @param chartFilePath the path to the chart
+     * @return the loaded chart
+     */
+    private static Chart loadChart(String chartFilePath) {
+        try {
+            return Chart.load(chartFilePath);
+        } catch (Exception e) {
+            e.printStackTrace();
+            System.exit(-1);
+            return null;
+        }
+    }
+    /**
+     * Creates the lanes of the chart, with the note behaviours their notes need.
+     */
+    private void createLanes() {
+        lanesByIndex = new Lane[chart.getLaneCount()];
+        for (int i = 0; i < chart.getLaneCount(); i++) {
+            String laneType = chart.getLaneType(i);
+            Lane lane = new Lane(laneType, chart.getLaneLocation(i), chart.getLaneNoteCount(i), speeds);
+            lanesByIndex[i] = lane;
+
+            if (laneType.equals("Special")) {
+                specialLanes.add(lane);
+            } else {
+                lanes.add(lane);
+            }
+        }
+        for (int i = 0; i < chart.getNoteCount(); i++) {
+            lanesByIndex[chart.getNoteLane(i)].prepare(chart.getNoteType(i));
+        }
+    }
+    /**
+     * Creates the notes that appear on the current frame and adds them to their lanes.
+     */
+    private void spawnNotes() {
+        while (nextNote < chart.getNoteCount() && chart.getNoteFrame(nextNote) <= currFrame) {
+            lanesByIndex[chart.getNoteLane(nextNote)].addNote(chart.getNoteType(nextNote),
+                    chart.getNoteFrame(nextNote));
+            nextNote++;
+        }
+    }
+    /**
+     * Advances the session by one frame.
+     * Updates the lanes, the guardian and the enemies, and adds up the score for the frame.
+     *
+     * @param input the keyboard state for the frame
+     */
+    public void update(KeyInput input) {
+        currFrame++;
+        speeds.update(currFrame);
+        long start = profiler.start();
+        spawnNotes();
+        for (int i = 0; i < lanes.size(); i++) {
+            Lane lane = lanes.get(i);
+            score += lane.update(input, accuracy) * speeds.getScoreMultiplier();
+        }
+
+        for (int i = 0; i < specialLanes.size(); i++) {
+            Lane lane = specialLanes.get(i);
+            score += lane.update(input, accuracy) * speeds.getScoreMultiplier();
+        }
+        profiler.stop(FrameProfiler.Section.LANES, start);
+
+        if (enemiesEnabled) {
+            start = profiler.start();
+            guardian.update(input, enemies);
+            profiler.stop(FrameProfiler.Section.GUARDIAN, start);
+
+            start = profiler.start();
+            if (spawnsEnemy(currFrame) && !spawnEnemy()) {
+                if (droppedSpawns == 0) {
+                    System.err.println("All " + MAX_ENEMIES + " enemies are in use; dropping enemy spawns");
+                }
+                droppedSpawns++;
+            }
+
+            for (int i = 0; i < enemies.size(); i++) {
+                Enemy enemy = enemies.get(i);
+                enemy.update();
+            }
+            profiler.stop(FrameProfiler.Section.ENEMIES, start);
+
+            start = profiler.start();
+            eatNotes();
+            profiler.stop(FrameProfiler.Section.COLLISIONS, start);
+        }
+        for (int i = enemies.size() - 1; i >= 0; i--) {
+            if (enemies.get(i).isRemoved()) {
+                enemies.free(i);
+            }
+        }
+        accuracy.update();
+    }
+    /**
+     * Checks if a new enemy is created on a frame, when enemies are enabled.
+     *
+     * @param frame the frame
+     * @return true if an enemy is created on the frame, false otherwise
+     */
+    private static boolean spawnsEnemy(int frame) {
+        return frame % ENEMY_CREATION_FRAME == 0;
+    }
+    /**
+     * Spawns an enemy from the pool, if there is a free one.
+     *
+     * @return true if an enemy was spawned, false if every enemy is in use
+     */
+    private boolean spawnEnemy() {
+        Enemy enemy = enemies.obtain();
+        if (enemy == null) {
+            return false;
+        }
+        enemy.spawn(speeds.getEnemySpeed(), random);
+        return true;
+    }
+    /**
+     * Lets the enemies eat the normal notes they collide with.
+     * The enemies are bucketed into a grid once per frame, so each lane only checks the
+     * enemies near it instead of every enemy against every note.
+     */
+    private void eatNotes() {
+        int count = enemies.size();
+        if (count == 0) {
+            return;
+        }
+        if (enemyXs.length < count) {
+            // sized for the whole pool at once, so the arrays never grow again during play
+            enemyXs = new double[enemies.getCapacity()];
+            enemyYs = new double[enemyXs.length];
+        }
+        for (int i = 0; i < count; i++) {
+            Enemy enemy = enemies.get(i);
+            enemyXs[i] = enemy.getX();
+            enemyYs[i] = enemy.getY();
+        }
+        enemyGrid.build(enemyXs, enemyYs, count);
+        for (int i = 0; i < lanes.size(); i++) {
+            Lane lane = lanes.get(i);
+            lane.eatNotes(enemyGrid, enemies);
+        }
+    }
+    /**
+     * Draws the lanes, notes, enemies, guardian and accuracy label of the session.
+     * The sprites are collected in the sprite batch and drawn a layer at a time; the accuracy
+     * label is text, so it is drawn after them.
+     * Moving sprites are drawn part way to where they will be on the next frame, so motion
+     * stays smooth when the display refreshes faster than the simulation.
+     *
+     * @param alpha how far the simulation is through the next frame, from 0 to 1
+     */
+    public void draw(double alpha) {
+        long start = profiler.start();
+        drawSprites(alpha);
+        profiler.stop(FrameProfiler.Section.DRAW, start);
+
+        start = profiler.start();
+        accuracy.draw();
+        profiler.stop(FrameProfiler.Section.ACCURACY, start);
+    }
+    /**
+     * Draws the lanes, notes, enemies and guardian of the session through its SpriteRenderer.
+     * Unlike draw, this draws no text, so it needs no window when the renderer does not.
+     *
+     * @param alpha how far the simulation is through the next frame, from 0 to 1
+     */
+    public void drawSprites(double alpha) {
+        for (int i = 0; i < lanes.size(); i++) {
+            Lane lane = lanes.get(i);
+            lane.draw(batch, alpha);
+        }
+
+        for (int i = 0; i < specialLanes.size(); i++) {
+            Lane lane = specialLanes.get(i);
+            lane.draw(batch, alpha);
+        }
+
+        if (enemiesEnabled) {
+            guardian.draw(batch, alpha);
+            for (int i = 0; i < enemies.size(); i++) {
+                Enemy enemy = enemies.get(i);
+                enemy.draw(batch, alpha);
+            }
+        }
+        batch.flush(renderer);
+    }
+    /**
+     * Checks if all the lanes are finished.
+     * Each lane tracks its own finished notes, so this does not look at any notes.
+     *
+     * @return true if all the lanes are finished, false otherwise
+     */
+    public boolean isFinished() {
+        for (int i = 0; i < lanes.size(); i++) {
+            Lane lane = lanes.get(i);
+            if (!lane.isFinished()) {
+                return false;
+            }
+        }
+        for (int i = 0; i < specialLanes.size(); i++) {
+            Lane lane = specialLanes.get(i);
+            if (!lane.isFinished()) {
+                return false;
+            }
+        }
+        return true;
+    }
+    /**
+     * Gets the percentage of the chart's notes that are finished.
+     *
+     * @return the percentage of finished notes, from 0 to 100
+     */
+    public double getProgress() {
+        int completed = 0;
+        for (int i = 0; i < lanes.size(); i++) {
+            Lane lane = lanes.get(i);
+            completed += lane.getCompletedNotes();
+        }
+        for (int i = 0; i < specialLanes.size(); i++) {
+            Lane lane = specialLanes.get(i);
+            completed += lane.getCompletedNotes();
+        }
+        return chart.getNoteCount() == 0 ? 100.0 : 100.0 * completed / chart.getNoteCount();
+    }
+    /**
+     * Releases the shared textures held by the session.
+     * The session must not be used after it is disposed.
+     */
+    public void dispose() {
+        for (Lane lane : lanes) {
+            lane.dispose();
+        }
+        for (Lane lane : specialLanes) {
+            lane.dispose();
+        }
+        lanes.clear();
+        specialLanes.clear();
+        enemies.dispose(Enemy::release);
+        guardian.dispose();
+    }
+    /**
+     * Gets the current score.
+     *
+     * @return the current score
+     */
+    public int getScore() {
+        return score;
+    }
+    /**
+     * Gets the number of enemy spawns dropped because every enemy in the pool was in use.
+     *
+     * @return the number of dropped spawns
+     */
+    public int getDroppedSpawns() {
+        return droppedSpawns;
+    }
+    /**
+     * Sets the FrameProfiler that times the sections of each frame.
+     *
+     * @param profiler the profiler, or FrameProfiler.DISABLED to not time anything
+     */
+    public void setProfiler(FrameProfiler profiler) {
+        this.profiler = profiler;
+    }
+    /**
+     * Sets the SpriteRenderer the session is drawn with, such as a CountingSpriteRenderer
+     * to count draw calls without a window.
+     *
+     * @param renderer the renderer
+     */
+    public void setRenderer(SpriteRenderer renderer) {
+        this.renderer = renderer;
+    }
+    /**
+     * Gets the FrameProfiler that times the sections of each frame.
+     *
+     * @return the profiler
+     */
+    public FrameProfiler getProfiler() {
+        return profiler;
+    }
+    /**
+     * Gets the seed of the session's random number generator.
+     *
+     * @return the seed
+     */
+    public long getSeed() {
+        return seed;
+    }
+    /**
+     * Gets the current frame.
+     *
+     * @return the current frame
+     */
+    public int getCurrFrame() {
+        return currFrame;
+    }
+}
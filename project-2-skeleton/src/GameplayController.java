@@ -0,0 +1,88 @@
+import bagel.*;
+
+/**
+ * The GameplayController class runs the gameplay of a level one frame at a time.
+ * It wraps a GameSession with the pause toggle on TAB, and can record the keys of each
+ * frame into a Replay. ShadowDance drives it from the window and ReplayPlayer drives it
+ * from a replay, so recorded plays go through exactly the same update path as live ones.
+ *
+ * Attributes:
+ * - session: The GameSession being played.
+ * - recording: The Replay the frames are recorded into, or null if not recording.
+ * - paused: A boolean indicating whether the gameplay is paused.
+ * - finished: A boolean indicating whether the level is finished.
+ */
+public class GameplayController {
+    private final GameSession session;
+    private final Replay recording;
+    private boolean paused = false;
+    private boolean finished = false;
+    /**
+     * Constructs a GameplayController for a session.
+     *
+     * @param session the session to play
+     * @param recording the replay to record into, or null to not record
+     */
+    public GameplayController(GameSession session, Replay recording) {
+        this.session = session;
+        this.recording = recording;
+    }
+    /**
+     * Advances the gameplay by one frame.
+     * While paused, the session does not advance and TAB resumes it; otherwise the
+     * session is updated and TAB pauses it.
+     *
+     * @param input the keyboard state for the frame
+     */
+    public void update(KeyInput input) {
+        if (recording != null) {
+            recording.record(input);
+        }
+        if (paused) {
+            if (input.wasPressed(Keys.TAB)) {
+                paused = false;
+            }
+        } else {
+            session.update(input);
+            FrameProfiler profiler = session.getProfiler();
+            long start = profiler.start();
+            finished = session.isFinished();
+            profiler.stop(FrameProfiler.Section.FINISH_CHECK, start);
+            if (input.wasPressed(Keys.TAB)) {
+                paused = true;
+            }
+        }
+    }
+    /**
+     * Checks if the level is finished.
+     *
+     * @return true if the level is finished, false otherwise
+     */
+    public boolean isFinished() {
+        return finished;
+    }
+    /**
+     * Checks if the gameplay is paused.
+     *
+     * @return true if paused, false otherwise
+     */
+    public boolean isPaused() {
+        return paused;
+    }
+    /**
+     * Gets the session being played.
+     *
+     * @return the session
+     */
+    public GameSession getSession() {
+        return session;
+    }
+    /**
+     * Gets the replay being recorded.
+     *
+     * @return the replay, or null if not recording
+     */
+    public Replay getRecording() {
+        return recording;
+    }
+}
@@ -0,0 +1,82 @@
+import bagel.*;
+import org.lwjgl.glfw.GLFW;
+import org.lwjgl.glfw.GLFWKeyCallback;
+import org.lwjgl.glfw.GLFWKeyCallbackI;
+
+/**
+ * The GlfwKeyStamper class timestamps key events as GLFW delivers them, before the game's
+ * next update reads the keyboard.
+ * bagel only reports which keys changed since the previous rendered frame, so on its own every
+ * event looks as if it happened at the frame. The stamper is chained in front of bagel's GLFW
+ * key callback: it hands each event on to bagel unchanged, and also records the System.nanoTime
+ * it arrived at in a KeyStampQueue, which the game drains on its next update.
+ * GLFW only delivers events on the main thread, while it polls for them, so the callback runs
+ * there, on the thread that drains the queue.
+ * Key repeats are ignored, and only the keys a Replay records are stamped.
+ *
+ * Attributes:
+ * - queue: The queue the stamped events are added to.
+ * - previous: The key callback installed before the stamper, which events are handed on to.
+ */
+public class GlfwKeyStamper implements GLFWKeyCallbackI {
+    private final KeyStampQueue queue;
+    private GLFWKeyCallback previous;
+    /**
+     * Constructs a GlfwKeyStamper that adds events to a queue.
+     *
+     * @param queue the queue for the stamped events
+     */
+    public GlfwKeyStamper(KeyStampQueue queue) {
+        this.queue = queue;
+    }
+    /**
+     * Installs the stamper as the key callback of the current GLFW window, in front of the
+     * callback already installed. Must be called on the main thread, after the window is created.
+     *
+     * @return true if the stamper was installed, false if there is no current window
+     */
+    public boolean install() {
+        long window = GLFW.glfwGetCurrentContext();
+        if (window == 0) {
+            return false;
+        }
+        previous = GLFW.glfwSetKeyCallback(window, this);
+        return true;
+    }
+
+    @Override
+    public void invoke(long window, int key, int scancode, int action, int mods) {
+        long now = System.nanoTime();
+        if (previous != null) {
+            previous.invoke(window, key, scancode, action, mods);
+        }
+        if (action == GLFW.GLFW_REPEAT) {
+            return;
+        }
+        int keyIndex = Replay.indexOf(toKey(key));
+        if (keyIndex >= 0) {
+            queue.add(keyIndex, action == GLFW.GLFW_PRESS, now);
+        }
+    }
+
+    private static Keys toKey(int glfwKey) {
+        switch (glfwKey) {
+            case GLFW.GLFW_KEY_LEFT:
+                return Keys.LEFT;
+            case GLFW.GLFW_KEY_RIGHT:
+                return Keys.RIGHT;
+            case GLFW.GLFW_KEY_UP:
+                return Keys.UP;
+            case GLFW.GLFW_KEY_DOWN:
+                return Keys.DOWN;
+            case GLFW.GLFW_KEY_SPACE:
+                return Keys.SPACE;
+            case GLFW.GLFW_KEY_LEFT_SHIFT:
+                return Keys.LEFT_SHIFT;
+            case GLFW.GLFW_KEY_TAB:
+                return Keys.TAB;
+            default:
+                return null;
+        }
+    }
+}
@@ -1,64 +1,205 @@
-import java.util.ArrayList;
 import bagel.*;
 import bagel.util.Point;
-import bagel.util.Vector2;
 /**
  * The Guardian class represents the main character of the game.
  * It is responsible for shooting arrows towards enemies.
+ * Its arrows come from a bounded Pool; when every arrow is in flight, pressing the
+ * key again does nothing until one of them hits.
  * 
  * Attributes:
  * - POSITION: The static position of the Guardian.
- * - image: The image of the Guardian.
- * - arrows: The list of arrows shot by the Guardian.
- *
+ * - MAX_ARROWS: The largest number of arrows in flight at once.
+ * - HIT_DISTANCE: The distance from an enemy within which an arrow hits it.
+ * - WINDOW_WIDTH, WINDOW_HEIGHT: The size of the window the enemy grid covers.
+ * - texture: The shared texture of the Guardian.
+ * - arrows: The pool of arrows shot by the Guardian.
+ * - speeds: The SpeedController of the session, which sets the arrow speed.
+ * - enemyGrid: The grid of the enemies' positions, rebuilt each frame to find the enemies near each arrow.
+ * - enemyXs, enemyYs: The enemies' positions, reused each frame to build the grid.
  */
 public class Guardian {
     private static final Point POSITION = new Point(800, 600);
-    private final Image image = new Image("res/guardian.png");
-    private ArrayList<Arrow> arrows = new ArrayList<>();
+    private static final int MAX_ARROWS = 256;
+    private static final int HIT_DISTANCE = 62;
+    private static final int WINDOW_WIDTH = 1024;
+    private static final int WINDOW_HEIGHT = 768;
+    private final Texture texture = TextureCache.acquire("res/guardian.png");
+    private final Pool<Arrow> arrows;
+    private final SpeedController speeds;
+    private final SpatialGrid enemyGrid = new SpatialGrid(WINDOW_WIDTH, WINDOW_HEIGHT, HIT_DISTANCE);
+    private double[] enemyXs = new double[0];
+    private double[] enemyYs = new double[0];
+    /**
+     * Constructs a Guardian.
+     *
+     * @param speeds the SpeedController of the session
+     */
+    public Guardian(SpeedController speeds) {
+        this(speeds, MAX_ARROWS);
+    }
+    /**
+     * Constructs a Guardian that can have a given number of arrows in flight.
+     *
+     * @param speeds the SpeedController of the session
+     * @param maxArrows the largest number of arrows in flight at once
+     */
+    public Guardian(SpeedController speeds, int maxArrows) {
+        this.speeds = speeds;
+        this.arrows = new Pool<>(maxArrows, Arrow::new);
+    }
 
     /**
      * Updates the state of the Guardian and its arrows.
-     * If the left shift key is pressed, a new arrow is created.
-     * If an arrow hits an enemy, the enemy is removed.
+     * If the left shift key is pressed, an arrow is fired from the pool.
+     * If an arrow hits an enemy, the enemy is removed and the arrow stops at that enemy,
+     * so each arrow removes at most one enemy and each enemy absorbs at most one arrow.
+     * The enemies are bucketed into a grid once per frame, so each arrow only checks the
+     * enemies in the cells around it.
      *
-     * @param input the current input (keyboard and mouse state)
-     * @param enemies the list of current enemies
+     * @param input the keyboard state for the current frame
+     * @param enemies the pool of current enemies
      */
-    public void update(Input input, ArrayList<Enemy> enemies) {
+    public void update(KeyInput input, Pool<Enemy> enemies) {
         if (input.wasPressed(Keys.LEFT_SHIFT)) {
-            Vector2 direction;
             Enemy target = findNearestEnemy(enemies);
             if (target != null) {
-                direction = target.getPosition().asVector().sub(POSITION.asVector()).normalised();
+                double dx = target.getX() - POSITION.x;
+                double dy = target.getY() - POSITION.y;
+                double length = Math.sqrt(dx * dx + dy * dy);
+                fire(POSITION.x, POSITION.y, dx / length, dy / length);
             } else {
-                direction = new Vector2(0, -1);
+                fire(POSITION.x, POSITION.y, 0, -1);
             }
-            arrows.add(new Arrow(direction));
         }
-        for (Arrow arrow : arrows) {
-            arrow.update();
-            for (Enemy enemy : enemies) {
-                if (arrow.getPosition().distanceTo(enemy.getPosition()) <= 62) {
+        for (int i = 0; i < arrows.size(); i++) {
+            Arrow arrow = arrows.get(i);
+            arrow.update(speeds.getArrowSpeed());
+        }
+        if (!arrows.isEmpty() && !enemies.isEmpty()) {
+            buildEnemyGrid(enemies);
+            for (int i = 0; i < arrows.size(); i++) {
+                Arrow arrow = arrows.get(i);
+                Enemy enemy = findHitEnemy(arrow, enemies);
+                if (enemy != null) {
                     enemy.remove();
                     arrow.hit();
                 }
             }
         }
-        arrows.removeIf(Arrow::isHit);
-        image.draw(POSITION.x, POSITION.y);
+        for (int i = arrows.size() - 1; i >= 0; i--) {
+            if (arrows.get(i).isHit()) {
+                arrows.free(i);
+            }
+        }
+    }
+    /**
+     * Rebuilds the grid of the enemies' positions.
+     *
+     * @param enemies the pool of current enemies
+     */
+    private void buildEnemyGrid(Pool<Enemy> enemies) {
+        int count = enemies.size();
+        if (enemyXs.length < count) {
+            // sized for the whole pool at once, so the arrays never grow again during play
+            enemyXs = new double[enemies.getCapacity()];
+            enemyYs = new double[enemyXs.length];
+        }
+        for (int i = 0; i < count; i++) {
+            Enemy enemy = enemies.get(i);
+            enemyXs[i] = enemy.getX();
+            enemyYs[i] = enemy.getY();
+        }
+        enemyGrid.build(enemyXs, enemyYs, count);
+    }
+    /**
+     * Finds the first enemy an arrow hits, skipping enemies that have already been hit.
+     *
+     * @param arrow the arrow
+     * @param enemies the pool of current enemies the grid was built from
+     * @return the enemy hit by the arrow, or null if it hits none
+     */
+    private Enemy findHitEnemy(Arrow arrow, Pool<Enemy> enemies) {
+        double x = arrow.getX();
+        double y = arrow.getY();
+        int column = enemyGrid.cellX(x);
+        int row = enemyGrid.cellY(y);
+        int lastColumn = Math.min(enemyGrid.getColumns() - 1, column + 1);
+        int lastRow = Math.min(enemyGrid.getRows() - 1, row + 1);
+        for (int r = Math.max(0, row - 1); r <= lastRow; r++) {
+            for (int c = Math.max(0, column - 1); c <= lastColumn; c++) {
+                int end = enemyGrid.cellEnd(c, r);
+                for (int k = enemyGrid.cellStart(c, r); k < end; k++) {
+                    Enemy enemy = enemies.get(enemyGrid.itemAt(k));
+                    double dx = enemy.getX() - x;
+                    double dy = enemy.getY() - y;
+                    if (!enemy.isRemoved() && dx * dx + dy * dy <= HIT_DISTANCE * HIT_DISTANCE) {
+                        return enemy;
+                    }
+                }
+            }
+        }
+        return null;
+    }
+    /**
+     * Fires an arrow from the pool from a given position.
+     *
+     * @param x the x-coordinate of the arrow
+     * @param y the y-coordinate of the arrow
+     * @param dx the x-component of the direction of the arrow, as a unit vector
+     * @param dy the y-component of the direction of the arrow, as a unit vector
+     * @return true if the arrow was fired, false if every arrow is in flight
+     */
+    private boolean fire(double x, double y, double dx, double dy) {
+        Arrow arrow = arrows.obtain();
+        if (arrow == null) {
+            return false;
+        }
+        arrow.launch(x, y, dx, dy);
+        return true;
+    }
+    /**
+     * Gets the number of arrows in flight.
+     *
+     * @return the number of arrows
+     */
+    public int getArrowCount() {
+        return arrows.size();
+    }
+    /**
+     * Draws the Guardian and its arrows.
+     *
+     * @param batch the sprite batch of the frame
+     * @param alpha how far the simulation is through the next frame, from 0 to 1
+     */
+    public void draw(SpriteBatch batch, double alpha) {
+        for (int i = 0; i < arrows.size(); i++) {
+            Arrow arrow = arrows.get(i);
+            arrow.draw(batch, alpha, speeds.getArrowSpeed());
+        }
+        batch.add(SpriteBatch.Layer.GUARDIAN, texture, POSITION.x, POSITION.y);
+    }
+    /**
+     * Releases the shared textures of the Guardian and its arrows.
+     * The Guardian must not be used after it is disposed.
+     */
+    public void dispose() {
+        arrows.dispose(Arrow::release);
+        TextureCache.release(texture);
     }
      /**
      * Finds the nearest enemy to the Guardian.
      *
-     * @param enemies the list of current enemies
+     * @param enemies the pool of current enemies
      * @return the nearest enemy, or null if there are no enemies
      */
-    private Enemy findNearestEnemy(ArrayList<Enemy> enemies) {
+    private Enemy findNearestEnemy(Pool<Enemy> enemies) {
         Enemy nearestEnemy = null;
         double nearestDistance = Double.MAX_VALUE;
-        for (Enemy enemy : enemies) {
-            double distance = POSITION.distanceTo(enemy.getPosition());
+        for (int i = 0; i < enemies.size(); i++) {
+            Enemy enemy = enemies.get(i);
+            double dx = enemy.getX() - POSITION.x;
+            double dy = enemy.getY() - POSITION.y;
+            double distance = dx * dx + dy * dy;
             if (distance < nearestDistance) {
                 nearestEnemy = enemy;
                 nearestDistance = distance;
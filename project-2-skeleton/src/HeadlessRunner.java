@@ -0,0 +1,48 @@
+import java.util.List;
+
+/**
+ * The HeadlessRunner class plays a chart through the GameSession simulation without a window.
+ * It replays a scripted key-event stream as fast as possible, running the plays in parallel
+ * on a SessionScheduler, and reports the score and how many plays were simulated per second.
+ *
+ * Usage: HeadlessRunner chart [script.txt] [plays] [enemies] [threads] [seed]
+ * - chart: The CSV or compiled chart to play.
+ * - script.txt: The key script to replay (see ScriptedKeyInput), or "-" for no input.
+ * - plays: The number of times to play the chart.
+ * - enemies: "true" to enable the enemies and the guardian, as in level 3.
+ * - threads: The number of threads to play on; defaults to the number of processors.
+ * - seed: The seed that places enemies in every play; defaults to 0.
+ */
+public class HeadlessRunner {
+    private HeadlessRunner() {
+    }
+    /**
+     * The entry point for headless runs.
+     *
+     * @param args command-line arguments
+     */
+    public static void main(String[] args) throws Exception {
+        if (args.length < 1) {
+            System.err.println("Usage: HeadlessRunner chart [script.txt] [plays] [enemies] [threads] [seed]");
+            System.exit(-1);
+        }
+        Chart chart = Chart.load(args[0]);
+        ScriptedKeyInput script = args.length > 1 && !args[1].equals("-")
+                ? ScriptedKeyInput.readScript(args[1]) : new ScriptedKeyInput();
+        int plays = args.length > 2 ? Integer.parseInt(args[2]) : 1;
+        boolean enemiesEnabled = args.length > 3 && Boolean.parseBoolean(args[3]);
+        int threads = args.length > 4 ? Integer.parseInt(args[4]) : Runtime.getRuntime().availableProcessors();
+        long seed = args.length > 5 ? Long.parseLong(args[5]) : 0;
+
+        long start = System.nanoTime();
+        List<Integer> scores;
+        try (SessionScheduler scheduler = new SessionScheduler(threads)) {
+            scores = scheduler.playAll(chart, script, enemiesEnabled, plays, seed);
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        boolean identical = scores.stream().distinct().count() == 1;
+        System.out.printf("score %d, %d plays in %.3f s (%.1f plays/s)%s%n",
+                scores.get(scores.size() - 1), plays, seconds, plays / seconds,
+                identical ? "" : ", scores differ between plays");
+    }
+}
@@ -5,124 +5,83 @@ import bagel.*;
  */
 
 /**
- * The HoldNote class represents a special type of Note in the game.
- * When activated, it moves down the screen at a certain speed.
- * It can be deactivated by pressing a key when it is within a certain distance from the target height.
+ * The HoldNote class represents the behaviour of hold notes, which have to be held down.
+ * When activated, a hold note moves down the screen at a certain speed.
+ * Its hold starts by pressing a key within a certain time of its bottom reaching the
+ * target height, and it is deactivated by releasing the key within a certain time of its top reaching it.
  * 
  * Attributes:
  * - HEIGHT_OFFSET: The offset for the height of the HoldNote.
- * - image: The image of the HoldNote.
- * - appearanceFrame: The frame when the HoldNote appears.
- * - speed: The speed of the HoldNote.
- * - y: The y-coordinate of the HoldNote.
- * - active: A boolean indicating whether the HoldNote is active.
- * - holdStarted: A boolean indicating whether the hold of the HoldNote has started.
- * - completed: A boolean indicating whether the HoldNote is completed.
+ * - START_Y: The y-coordinate a HoldNote appears at.
  */
-public class HoldNote {
+public class HoldNote extends Note {
     private static final int HEIGHT_OFFSET = 82;
-    private final Image image;
-    private final int appearanceFrame;
-    private static int speed = 2;
-    private int y = 24;
-    private boolean active = false;
-    private boolean holdStarted = false;
-    private boolean completed = false;
+    private static final int START_Y = 24;
     /**
-     * Constructs a HoldNote with a given direction and appearance frame.
+     * Constructs the HoldNote behaviour for a given lane direction.
      *
-     * @param dir the direction of the HoldNote
-     * @param appearanceFrame the frame when the HoldNote appears
+     * @param dir the direction of the lane
      */
-    public HoldNote(String dir, int appearanceFrame) {
-        image = new Image("res/holdNote" + dir + ".png");
-        this.appearanceFrame = appearanceFrame;
+    public HoldNote(String dir) {
+        super(TextureCache.acquire("res/holdNote" + dir + ".png"));
     }
     /**
-     * Checks if the HoldNote is active.
+     * Gets the type of note this object is the behaviour of.
      *
-     * @return true if the HoldNote is active, false otherwise
+     * @return the type of the note
      */
-    public boolean isActive() {
-        return active;
+    @Override
+    public NoteType getType() {
+        return NoteType.HOLD;
     }
     /**
-     * Checks if the HoldNote is completed.
+     * Gets the y-coordinate a HoldNote appears at.
      *
-     * @return true if the HoldNote is completed, false otherwise
+     * @return the starting y-coordinate
      */
-    public boolean isCompleted() {
-        return completed;
+    @Override
+    public int getStartY() {
+        return START_Y;
     }
     /**
-     * Deactivates the HoldNote and marks it as completed.
-     */
-    public void deactivate() {
-        active = false;
-        completed = true;
-    }
-    /**
-     * Starts the hold of the HoldNote.
-     */
-    public void startHold() {
-        holdStarted = true;
-    }
-    /**
-     * Updates the state of the HoldNote.
-     * If the HoldNote is active, it moves down the screen.
-     * If the current frame is greater than or equal to the appearance frame and the HoldNote is not completed, it is activated.
-     */
-    public void update() {
-        if (active) {
-            y += speed;
-        }
-
-        if (ShadowDance.getCurrFrame() >= appearanceFrame && !completed) {
-            active = true;
-        }
-    }
-    /**
-     * Draws the HoldNote on the screen at a given x-coordinate.
-     * The HoldNote is only drawn if it is active.
-     *
-     * @param x the x-coordinate where the HoldNote is drawn
-     */
-    public void draw(int x) {
-        if (active) {
-            image.draw(x, y);
-        }
-    }
-    /**
-     * Checks the score for the HoldNote.
-     * If the HoldNote is active and within a certain distance from the target height when a key is pressed, it is deactivated and a score is returned.
+     * Checks the score for a HoldNote.
+     * If the HoldNote is active and the key is pressed within a certain time of its bottom reaching the target height, its hold starts and a score is returned.
+     * Once held, it is deactivated and scored when the key is released, by the time from its top reaching the target height.
      * If the HoldNote has passed the target height, it is deactivated and a miss score is returned.
      *
-     * @param input the current input (keyboard and mouse state)
+     * @param notes the store holding the note
+     * @param i the index of the note
+     * @param keys the press and release of the lane's key on the current frame
      * @param accuracy the current accuracy
      * @param targetHeight the target height for the HoldNote
-     * @param relevantKey the key that deactivates the HoldNote
      * @return the score for the HoldNote
      */
-    public int checkScore(Input input, Accuracy accuracy, int targetHeight, Keys relevantKey) {
-        if (isActive() && !holdStarted) {
-            int score = accuracy.evaluateScore(getBottomHeight(), targetHeight, input.wasPressed(relevantKey));
+    @Override
+    public int checkScore(NoteStore notes, int i, KeyTiming keys, Accuracy accuracy, int targetHeight) {
+        if (notes.isActive(i) && !notes.isHoldStarted(i)) {
+            // the bottom reaches the target when the note's y-coordinate is HEIGHT_OFFSET above it
+            int score = keys.wasPressed()
+                    ? accuracy.evaluateScore(keys.pressError(notes, i, targetHeight - HEIGHT_OFFSET))
+                    : accuracy.evaluateMiss(getBottomHeight(notes, i));
 
             if (score == Accuracy.MISS_SCORE) {
-                deactivate();
+                notes.deactivate(i);
                 return score;
             } else if (score != Accuracy.NOT_SCORED) {
-                startHold();
+                notes.startHold(i);
                 return score;
             }
-        } else if (isActive() && holdStarted) {
+        } else if (notes.isActive(i) && notes.isHoldStarted(i)) {
 
-            int score = accuracy.evaluateScore(getTopHeight(), targetHeight, input.wasReleased(relevantKey));
+            int score = keys.wasReleased()
+                    ? accuracy.evaluateScore(keys.releaseError(notes, i, targetHeight + HEIGHT_OFFSET))
+                    : accuracy.evaluateMiss(getTopHeight(notes, i));
 
             if (score != Accuracy.NOT_SCORED) {
-                deactivate();
+                notes.deactivate(i);
                 return score;
-            } else if (input.wasReleased(relevantKey)) {
-                deactivate();
+            } else if (keys.wasReleased()) {
+                notes.deactivate(i);
                 accuracy.setAccuracy(Accuracy.MISS);
                 return Accuracy.MISS_SCORE;
             }
@@ -131,30 +90,30 @@ public class HoldNote {
         return 0;
     }
     /**
-     * gets the location of the start of the note
-     */
-    private int getBottomHeight() {
-        return y + HEIGHT_OFFSET;
-    }
-
-    /**
-     * gets the location of the end of the note
+     * Gets the deadline of a HoldNote: the distance scrolled at which it is missed, when its
+     * bottom reaches the bottom of the window before the hold starts, or its top does after.
+     *
+     * @param notes the store holding the note
+     * @param i the index of the note
+     * @param targetHeight the target height for the HoldNote
+     * @return the deadline, as a distance scrolled from the start of the song
      */
-    private int getTopHeight() {
-        return y - HEIGHT_OFFSET;
+    @Override
+    public long getDeadline(NoteStore notes, int i, int targetHeight) {
+        int offset = notes.isHoldStarted(i) ? -HEIGHT_OFFSET : HEIGHT_OFFSET;
+        return notes.distanceAt(i, Accuracy.WINDOW_HEIGHT - offset);
     }
     /**
-     * Increases the speed of the note by 1.
+     * gets the location of the start of the note
      */
-    public static void increaseSpeed() {
-        speed++;
+    private int getBottomHeight(NoteStore notes, int i) {
+        return notes.getY(i) + HEIGHT_OFFSET;
     }
+
     /**
-     * Decreases the speed of the note by 1.
+     * gets the location of the end of the note
      */
-    public static void decreaseSpeed() {
-        if (speed > 1) {
-            speed--;
-        }
+    private int getTopHeight(NoteStore notes, int i) {
+        return notes.getY(i) - HEIGHT_OFFSET;
     }
 }
@@ -0,0 +1,51 @@
+import bagel.*;
+
+/**
+ * The KeyEvent class represents a single key press or release at a given frame.
+ *
+ * Attributes:
+ * - frame: The frame the event happens on.
+ * - key: The key of the event.
+ * - pressed: A boolean indicating whether the key was pressed (true) or released (false).
+ */
+public class KeyEvent {
+    private final int frame;
+    private final Keys key;
+    private final boolean pressed;
+    /**
+     * Constructs a KeyEvent.
+     *
+     * @param frame the frame the event happens on
+     * @param key the key of the event
+     * @param pressed true for a press, false for a release
+     */
+    public KeyEvent(int frame, Keys key, boolean pressed) {
+        this.frame = frame;
+        this.key = key;
+        this.pressed = pressed;
+    }
+    /**
+     * Gets the frame the event happens on.
+     *
+     * @return the frame of the event
+     */
+    public int getFrame() {
+        return frame;
+    }
+    /**
+     * Gets the key of the event.
+     *
+     * @return the key of the event
+     */
+    public Keys getKey() {
+        return key;
+    }
+    /**
+     * Checks if the event is a key press.
+     *
+     * @return true if the key was pressed, false if it was released
+     */
+    public boolean isPressed() {
+        return pressed;
+    }
+}
@@ -0,0 +1,43 @@
+import bagel.*;
+
+/**
+ * The KeyInput interface is the keyboard state the game simulation reads each frame.
+ * It lets the simulation run from the live bagel Input or from a scripted key-event
+ * stream without an OpenGL context.
+ * Inputs that know when within a frame a key event happened report it as an offset from the
+ * frame's time; the others report every event at the frame itself.
+ */
+public interface KeyInput {
+    /**
+     * Checks if a key was pressed during the current frame.
+     *
+     * @param key the key to check
+     * @return true if the key was pressed, false otherwise
+     */
+    boolean wasPressed(Keys key);
+    /**
+     * Checks if a key was released during the current frame.
+     *
+     * @param key the key to check
+     * @return true if the key was released, false otherwise
+     */
+    boolean wasReleased(Keys key);
+    /**
+     * Gets when a key was pressed during the current frame, relative to the time of the frame.
+     *
+     * @param key the key to check
+     * @return the time of the press less the time of the frame, in microseconds, or 0 if not known
+     */
+    default int getPressOffset(Keys key) {
+        return 0;
+    }
+    /**
+     * Gets when a key was released during the current frame, relative to the time of the frame.
+     *
+     * @param key the key to check
+     * @return the time of the release less the time of the frame, in microseconds, or 0 if not known
+     */
+    default int getReleaseOffset(Keys key) {
+        return 0;
+    }
+}
@@ -0,0 +1,70 @@
+import java.util.Arrays;
+
+/**
+ * The KeyStampQueue class holds timestamped key events from the moment they are received until
+ * the game's next update reads them.
+ * GLFW delivers key events on the main thread, while it polls for them between frames, and the
+ * game drains them on the same thread, so the queue is a plain pair of arrays with no locking.
+ * It starts with room for far more events than a frame sees and doubles when it is full, so
+ * no event is ever dropped.
+ * An event is a key, as an index into Replay's keys, whether it was pressed or released,
+ * and the System.nanoTime it happened at.
+ *
+ * Attributes:
+ * - INITIAL_CAPACITY: The number of events the queue has room for before it first grows.
+ * - PRESSED: The bit of an event's code set for a press.
+ * - times: The time of each event, in nanoseconds.
+ * - codes: The key index of each event, with PRESSED set for a press.
+ * - size: The number of events in the queue.
+ */
+public class KeyStampQueue {
+    private static final int INITIAL_CAPACITY = 64;
+    private static final int PRESSED = 0x100;
+    private long[] times = new long[INITIAL_CAPACITY];
+    private int[] codes = new int[INITIAL_CAPACITY];
+    private int size = 0;
+    /**
+     * Adds an event to the end of the queue.
+     *
+     * @param keyIndex the index of the key in Replay's keys
+     * @param pressed true for a press, false for a release
+     * @param nanos the time of the event, from System.nanoTime
+     */
+    public void add(int keyIndex, boolean pressed, long nanos) {
+        if (size == codes.length) {
+            times = Arrays.copyOf(times, size * 2);
+            codes = Arrays.copyOf(codes, size * 2);
+        }
+        times[size] = nanos;
+        codes[size] = pressed ? keyIndex | PRESSED : keyIndex;
+        size++;
+    }
+    /**
+     * Hands every queued event to a listener, oldest first, and empties the queue.
+     *
+     * @param listener the listener to receive the events
+     * @return the number of events drained
+     */
+    public int drain(Listener listener) {
+        int drained = size;
+        for (int i = 0; i < drained; i++) {
+            int code = codes[i];
+            listener.onKey(code & ~PRESSED, (code & PRESSED) != 0, times[i]);
+        }
+        size = 0;
+        return drained;
+    }
+    /**
+     * The Listener interface receives the events drained from a KeyStampQueue.
+     */
+    public interface Listener {
+        /**
+         * Receives one key event.
+         *
+         * @param keyIndex the index of the key in Replay's keys
+         * @param pressed true for a press, false for a release
+         * @param nanos the time of the event, from System.nanoTime
+         */
+        void onKey(int keyIndex, boolean pressed, long nanos);
+    }
+}
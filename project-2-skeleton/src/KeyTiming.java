@@ -0,0 +1,94 @@
+import bagel.*;
+
+/**
+ * The KeyTiming class is the press and release of a Lane's key on the current frame, with the
+ * exact time each happened. A Lane fills it in once per frame and hands it to the note it judges,
+ * which compares the time of the event with the time the note reaches a given height.
+ * Times are kept in fractional frames of the session, since that is what note positions are
+ * measured in; a key event stamped part way between two frames falls between them. The errors
+ * handed to Accuracy are converted to milliseconds.
+ *
+ * Attributes:
+ * - MICROS_PER_SECOND: The number of microseconds in a second.
+ * - timeline: The note speed timeline, used to find when a note reaches a height.
+ * - pressed, released: Booleans indicating whether the key was pressed and released on the frame.
+ * - pressFrame, releaseFrame: The fractional frame of the press and release.
+ */
+public class KeyTiming {
+    private static final double MICROS_PER_SECOND = 1_000_000.0;
+    private final SpeedTimeline timeline;
+    private boolean pressed = false;
+    private boolean released = false;
+    private double pressFrame = 0;
+    private double releaseFrame = 0;
+    /**
+     * Constructs a KeyTiming for the notes of a session.
+     *
+     * @param timeline the note speed timeline of the session
+     */
+    public KeyTiming(SpeedTimeline timeline) {
+        this.timeline = timeline;
+    }
+    /**
+     * Reads the press and release of a key on the current frame.
+     *
+     * @param input the keyboard state for the frame
+     * @param key the key
+     * @param frame the current frame
+     */
+    public void set(KeyInput input, Keys key, int frame) {
+        pressed = input.wasPressed(key);
+        released = input.wasReleased(key);
+        pressFrame = pressed ? frame + toFrames(input.getPressOffset(key)) : frame;
+        releaseFrame = released ? frame + toFrames(input.getReleaseOffset(key)) : frame;
+    }
+
+    private static double toFrames(int micros) {
+        return micros * FixedTimestep.TICKS_PER_SECOND / MICROS_PER_SECOND;
+    }
+    /**
+     * Checks if the key was pressed on the current frame.
+     *
+     * @return true if the key was pressed, false otherwise
+     */
+    public boolean wasPressed() {
+        return pressed;
+    }
+    /**
+     * Checks if the key was released on the current frame.
+     *
+     * @return true if the key was released, false otherwise
+     */
+    public boolean wasReleased() {
+        return released;
+    }
+    /**
+     * Gets how long after a note reaches a height the key was pressed.
+     *
+     * @param notes the store holding the note
+     * @param i the index of the note
+     * @param height the height the note is judged at
+     * @return the time of the press less the time the note reaches the height, in milliseconds;
+     *         negative if the press was early
+     */
+    public double pressError(NoteStore notes, int i, int height) {
+        return errorMillis(pressFrame, notes, i, height);
+    }
+    /**
+     * Gets how long after a note reaches a height the key was released.
+     *
+     * @param notes the store holding the note
+     * @param i the index of the note
+     * @param height the height the note is judged at
+     * @return the time of the release less the time the note reaches the height, in milliseconds;
+     *         negative if the release was early
+     */
+    public double releaseError(NoteStore notes, int i, int height) {
+        return errorMillis(releaseFrame, notes, i, height);
+    }
+
+    private double errorMillis(double eventFrame, NoteStore notes, int i, int height) {
+        double hitFrame = timeline.frameAt(notes.distanceAt(i, height));
+        return (eventFrame - hitFrame) * 1000.0 / FixedTimestep.TICKS_PER_SECOND;
+    }
+}
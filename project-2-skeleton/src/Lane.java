@@ -1,6 +1,3 @@
-import java.util.ArrayList;
-import java.util.List;
-
 import bagel.*;
 
 /*
@@ -9,45 +6,69 @@ import bagel.*;
 
 /**
  * The Lane class represents the lanes in the game where notes fall down.
- * It manages different types of notes and their updates.
+ * It keeps all of its notes, of every type, in a NoteStore ordered by appearance,
+ * and judges them in one pass each frame.
+ * Only the notes between the head and the tail of the store are updated and drawn:
+ * the head is the first note that has not been pressed or missed, and the tail is the
+ * end of the notes that have appeared so far. Finished notes before the head are dropped
+ * once enough of them have built up, so a Lane only holds the notes on screen.
+ * Notes that have scrolled off the bottom of the window stay in the store until they are judged
+ * as missed, but they are not drawn or checked against enemies: the Lane finds where the
+ * visible notes start with a binary search, so that work depends only on the notes on screen.
+ * Judgement is driven by events: the head note is only judged on a frame where the Lane's key
+ * is pressed or released, or once the distance scrolled reaches the head note's deadline, when
+ * it would be missed; on any other frame judging it could not change it, so the Lane skips it.
+ * The Lane counts its finished notes as the head moves past them, so it knows whether it is
+ * finished, and how far through it is, without looking at its notes.
  * 
  * Attributes:
+ * - COMPACT_THRESHOLD: The number of finished notes the store may hold before they are dropped.
+ * - VISIBLE_BOTTOM: The y-coordinate below which a note cannot be seen or reached by an enemy;
+ *   the bottom of the window plus half the height of the tallest note, which is more than an enemy's reach.
  * - type: The type of the Lane.
- * - image: The image of the Lane.
- * - notes, holdNotes, speedUpNotes, slowDownNotes, doubleScoreNotes, bombNotes: Lists of different types of notes in the Lane.
+ * - texture: The shared texture of the Lane.
+ * - notes: The store of notes in the Lane, ordered by appearance.
+ * - behaviours: The Note behaviour for each note type, indexed by NoteType ordinal and created
+ *   by prepare before play, or on first use.
  * - relevantKey: The key associated with the Lane.
  * - location: The location of the Lane.
- * - currNoteIndex, currHoldNoteIndex, currSpeedUpIndex, currSlowDownIndex, currDoubleScoreIndex, currBombIndex: Indices of the current notes of each type.
+ * - speeds: The SpeedController of the session, which positions the notes.
+ * - keys: The press and release of the Lane's key on the current frame, with their exact times.
+ * - headDeadline: The deadline of the head note, as a distance scrolled, or Long.MAX_VALUE if there is none.
+ * - totalNotes: The number of notes the Lane has in the chart.
+ * - completedNotes: The number of notes that have been pressed, missed or eaten.
  */
 public class Lane {
     private static final int HEIGHT = 384;
     private static final int TARGET_HEIGHT = 657;
+    private static final int COMPACT_THRESHOLD = 32;
+    private static final int VISIBLE_BOTTOM = 768 + 128;
     private final String type;
-    private final Image image;
-    private List<Note> notes = new ArrayList<>();
-    private List<HoldNote> holdNotes = new ArrayList<>();
-    private List<SpeedUpNote> speedUpNotes = new ArrayList<>();
-    private List<SlowDownNote> slowDownNotes = new ArrayList<>();
-    private List<DoubleScoreNote> doubleScoreNotes = new ArrayList<>();
-    private List<BombNote> bombNotes = new ArrayList<>();
+    private final Texture texture;
+    private final NoteStore notes = new NoteStore();
+    private final Note[] behaviours = new Note[NoteType.values().length];
     private Keys relevantKey;
     private final int location;
-    private int currNoteIndex = 0;
-    private int currHoldNoteIndex = 0;
-    private int currSpeedUpIndex = 0;
-    private int currSlowDownIndex = 0;
-    private int currDoubleScoreIndex = 0;
-    private int currBombIndex = 0;
+    private final SpeedController speeds;
+    private final KeyTiming keys;
+    private long headDeadline = Long.MAX_VALUE;
+    private final int totalNotes;
+    private int completedNotes = 0;
     /**
-     * Constructs a Lane with a given direction and location.
+     * Constructs a Lane with a given direction, location and number of notes.
      *
      * @param dir the direction of the Lane
      * @param location the location of the Lane
+     * @param totalNotes the number of notes the Lane has in the chart
+     * @param speeds the SpeedController of the session
      */
-    public Lane(String dir, int location) {
+    public Lane(String dir, int location, int totalNotes, SpeedController speeds) {
         this.type = dir;
         this.location = location;
-        image = new Image("res/lane" + dir + ".png");
+        this.totalNotes = totalNotes;
+        this.speeds = speeds;
+        keys = new KeyTiming(speeds.getNoteTimeline());
+        texture = TextureCache.acquire("res/lane" + dir + ".png");
         switch (dir) {
             case "Left":
                 relevantKey = Keys.LEFT;
@@ -66,6 +87,48 @@ public class Lane {
                 break;
         }
     }
+    /**
+     * Gets the Note behaviour for a note type, creating it on first use.
+     *
+     * @param noteType the type of note
+     * @return the behaviour of notes of that type in this Lane
+     */
+    private Note behaviourOf(NoteType noteType) {
+        Note behaviour = behaviours[noteType.ordinal()];
+        if (behaviour == null) {
+            switch (noteType) {
+                case HOLD:
+                    behaviour = new HoldNote(type);
+                    break;
+                case SPEED_UP:
+                    behaviour = new SpeedUpNote(speeds);
+                    break;
+                case SLOW_DOWN:
+                    behaviour = new SlowDownNote(speeds);
+                    break;
+                case DOUBLE_SCORE:
+                    behaviour = new DoubleScoreNote(speeds);
+                    break;
+                case BOMB:
+                    behaviour = new BombNote();
+                    break;
+                default:
+                    behaviour = new Note(type);
+                    break;
+            }
+            behaviours[noteType.ordinal()] = behaviour;
+        }
+        return behaviour;
+    }
+    /**
+     * Creates the Note behaviour for a note type before play, so the first note of that type
+     * does not create it in the middle of the song.
+     *
+     * @param noteType the type of a note in the Lane's chart
+     */
+    public void prepare(NoteType noteType) {
+        behaviourOf(noteType);
+    }
     /**
      * Gets the type of the Lane.
      *
@@ -75,211 +138,175 @@ public class Lane {
         return type;
     }
     /**
-     * Updates all the notes in the Lane.
-     * It also checks the score for each type of note.
+     * Updates the notes in the Lane and judges them in order of appearance.
+     * Judging starts at the head of the store and moves on to the next note only while
+     * notes are finished without the key being pressed, so one key press scores at most one note.
+     * Nothing is judged unless the key was pressed or released, or the head note's deadline has passed.
      *
-     * @param input the current input (keyboard and mouse state)
+     * @param input the keyboard state for the current frame
      * @param accuracy the current accuracy
      * @return the score for the current frame
      */
-    public int update(Input input, Accuracy accuracy) {
-        draw();
-
-        for (int i = currNoteIndex; i < notes.size(); i++) {
-            notes.get(i).update();
-        }
-
-        for (int j = currHoldNoteIndex; j < holdNotes.size(); j++) {
-            holdNotes.get(j).update();
-        }
-
-        for (int k = currSpeedUpIndex; k < speedUpNotes.size(); k++) {
-            speedUpNotes.get(k).update();
-        }
-
-        for (int l = currSlowDownIndex; l < slowDownNotes.size(); l++) {
-            slowDownNotes.get(l).update();
-        }
-
-        for (int m = currDoubleScoreIndex; m < doubleScoreNotes.size(); m++) {
-            doubleScoreNotes.get(m).update();
+    public int update(KeyInput input, Accuracy accuracy) {
+        long distance = speeds.getNoteDistance();
+        notes.setDistance(distance);
+        // notes eaten since the last frame may have finished the head note
+        int eaten = notes.advanceHead();
+        if (eaten > 0) {
+            completedNotes += eaten;
+            updateDeadline();
         }
 
-        for (int n = currBombIndex; n < bombNotes.size(); n++) {
-            bombNotes.get(n).update();
+        keys.set(input, relevantKey, speeds.getCurrFrame());
+        boolean pressed = keys.wasPressed();
+        if (!pressed && !keys.wasReleased() && distance < headDeadline) {
+            return 0;
         }
 
-        if (currNoteIndex < notes.size()) {
-            int score = notes.get(currNoteIndex).checkScore(input, accuracy, TARGET_HEIGHT, relevantKey);
-            if (notes.get(currNoteIndex).isCompleted()) {
-                currNoteIndex++;
-                return score;
+        int score = 0;
+        int tail = notes.getTail();
+        for (int i = notes.getHead(); i < tail; i++) {
+            if (notes.isCompleted(i)) {
+                continue;
             }
-        }
-
-        if (currHoldNoteIndex < holdNotes.size()) {
-            int score = holdNotes.get(currHoldNoteIndex).checkScore(input, accuracy, TARGET_HEIGHT, relevantKey);
-            if (holdNotes.get(currHoldNoteIndex).isCompleted()) {
-                currHoldNoteIndex++;
-            }
-            return score;
-        }
-
-        if (currSpeedUpIndex < speedUpNotes.size()) {
-            int score = speedUpNotes.get(currSpeedUpIndex).checkScore(input, accuracy, TARGET_HEIGHT, relevantKey);
-            if (speedUpNotes.get(currSpeedUpIndex).isCompleted()) {
-                currSpeedUpIndex++;
-                return score;
-            }
-        }
-
-        if (currSlowDownIndex < slowDownNotes.size()) {
-            int score = slowDownNotes.get(currSlowDownIndex).checkScore(input, accuracy, TARGET_HEIGHT, relevantKey);
-            if (slowDownNotes.get(currSlowDownIndex).isCompleted()) {
-                currSlowDownIndex++;
-                return score;
-            }
-        }
-
-        if (currDoubleScoreIndex < doubleScoreNotes.size()) {
-            int score = doubleScoreNotes.get(currDoubleScoreIndex).checkScore(input, accuracy, TARGET_HEIGHT, relevantKey);
-            if (doubleScoreNotes.get(currDoubleScoreIndex).isCompleted()) {
-                currDoubleScoreIndex++;
-                return score;
+            score += behaviours[notes.getType(i).ordinal()].checkScore(notes, i, keys, accuracy, TARGET_HEIGHT);
+            if (!notes.isCompleted(i) || pressed) {
+                break;
             }
         }
 
-        if (currBombIndex < bombNotes.size()) {
-            int score = bombNotes.get(currBombIndex).checkScore(input, accuracy, TARGET_HEIGHT, relevantKey);
-            if (bombNotes.get(currBombIndex).isCompleted()) {
-                currBombIndex++;
-            }
-            return score;
+        completedNotes += notes.advanceHead();
+        if (notes.getHead() >= COMPACT_THRESHOLD) {
+            notes.compact();
         }
-
-        return Accuracy.NOT_SCORED;
+        updateDeadline();
+        return score;
     }
     /**
-     * Adds a Note to the Lane.
-     *
-     * @param n the Note to be added
+     * Works out the deadline of the head note, after the head note or its state has changed.
      */
-    public void addNote(Note n) {
-        notes.add(n);
+    private void updateDeadline() {
+        int head = notes.getHead();
+        headDeadline = head < notes.getTail()
+                ? behaviours[notes.getType(head).ordinal()].getDeadline(notes, head, TARGET_HEIGHT)
+                : Long.MAX_VALUE;
     }
     /**
-     * Adds a HoldNote to the Lane.
+     * Adds a note to the end of the Lane's store.
+     * Notes must be added in order of appearance.
      *
-     * @param hn the HoldNote to be added
+     * @param noteType the type of the note
+     * @param appearanceFrame the frame when the note appears
      */
-    public void addHoldNote(HoldNote hn) {
-        holdNotes.add(hn);
+    public void addNote(NoteType noteType, int appearanceFrame) {
+        notes.add(noteType, appearanceFrame, behaviourOf(noteType).getStartY(),
+                speeds.getNoteTimeline().distanceAt(appearanceFrame));
+        if (notes.getTail() - 1 == notes.getHead()) {
+            updateDeadline();
+        }
     }
     /**
-     * Adds a SpeedUpNote to the Lane.
+     * Marks the active normal notes that collide with an enemy as eaten.
+     * Eaten notes are left in the store as tombstones, completed without a score, and count
+     * as finished once the head passes them.
+     * The enemies are looked up in a grid built from their positions, so the Lane is skipped
+     * when no enemy is near its column and each note only checks the enemies in nearby cells.
      *
-     * @param su the SpeedUpNote to be added
+     * @param grid the grid of the enemies' positions, with cells at least Enemy.COLLISION wide
+     * @param enemies the pool of enemies the grid was built from, in the same order
      */
-    public void addSpeedUpNote(SpeedUpNote su) {
-        speedUpNotes.add(su);
+    public void eatNotes(SpatialGrid grid, Pool<Enemy> enemies) {
+        Note normal = behaviours[NoteType.NORMAL.ordinal()];
+        int column = grid.cellX(location);
+        if (normal == null || grid.isBandEmpty(column)) {
+            return;
+        }
+        int firstColumn = Math.max(0, column - 1);
+        int lastColumn = Math.min(grid.getColumns() - 1, column + 1);
+        int tail = notes.getTail();
+        for (int i = notes.firstAbove(VISIBLE_BOTTOM); i < tail; i++) {
+            if (notes.getType(i) != NoteType.NORMAL || !notes.isActive(i)) {
+                continue;
+            }
+            double centreY = normal.getCentreY(notes, i);
+            int row = grid.cellY(centreY);
+            int lastRow = Math.min(grid.getRows() - 1, row + 1);
+            search:
+            for (int r = Math.max(0, row - 1); r <= lastRow; r++) {
+                for (int c = firstColumn; c <= lastColumn; c++) {
+                    int end = grid.cellEnd(c, r);
+                    for (int k = grid.cellStart(c, r); k < end; k++) {
+                        if (enemies.get(grid.itemAt(k)).collidesWith(location, centreY)) {
+                            notes.eat(i);
+                            break search;
+                        }
+                    }
+                }
+            }
+        }
     }
     /**
-     * Adds a SlowDownNote to the Lane.
+     * Checks if all the notes in the Lane have been pressed, missed or eaten.
      *
-     * @param sd the SlowDownNote to be added
+     * @return true if all the notes are finished, false otherwise
      */
-    public void addSlowDownNote(SlowDownNote sd) {
-        slowDownNotes.add(sd);
+    public boolean isFinished() {
+        return completedNotes == totalNotes;
     }
     /**
-     * Adds a DoubleScoreNote to the Lane.
+     * Gets the number of notes in the Lane that have been pressed, missed or eaten.
      *
-     * @param ds the DoubleScoreNote to be added
+     * @return the number of finished notes
      */
-    public void addDoubleScoreNote(DoubleScoreNote ds) {
-        doubleScoreNotes.add(ds);
+    public int getCompletedNotes() {
+        return completedNotes;
     }
     /**
-     * Adds a BombNote to the Lane.
+     * Gets the number of notes in the Lane that are not finished yet,
+     * including notes that have not appeared.
      *
-     * @param b the BombNote to be added
+     * @return the number of remaining notes
      */
-    public void addBombNote(BombNote b) {
-        bombNotes.add(b);
+    public int getRemainingNotes() {
+        return totalNotes - completedNotes;
     }
     /**
-     * Checks if all the notes in the Lane have been pressed or missed.
+     * Gets the percentage of the Lane's notes that are finished.
+     * A Lane without notes is 100 percent complete.
      *
-     * @return true if all the notes have been pressed or missed, false otherwise
+     * @return the percentage of finished notes, from 0 to 100
      */
-    public boolean isFinished() {
-        for (Note note : notes) {
-            if (!note.isCompleted()) {
-                return false;
-            }
-        }
-
-        for (HoldNote holdNote : holdNotes) {
-            if (!holdNote.isCompleted()) {
-                return false;
-            }
-        }
-
-        for (SpeedUpNote speedUp : speedUpNotes) {
-            if (!speedUp.isCompleted()) {
-                return false;
-            }
-        }
-
-        for (SlowDownNote slowDown : slowDownNotes) {
-            if (!slowDown.isCompleted()) {
-                return false;
-            }
-        }
-
-        for (DoubleScoreNote doubleScore : doubleScoreNotes) {
-            if (!doubleScore.isCompleted()) {
-                return false;
-            }
-        }
-
-        for (BombNote bombNote : bombNotes) {
-            if (!bombNote.isCompleted()) {
-                return false;
-            }
-        }
-
-        return true;
+    public double getProgress() {
+        return totalNotes == 0 ? 100.0 : 100.0 * completedNotes / totalNotes;
     }
     /**
      * draws the lane and the notes
+     *
+     * @param batch the sprite batch of the frame
+     * @param alpha how far the simulation is through the next frame, from 0 to 1;
+     *              notes are drawn that far along their way to their next position
      */
-    public void draw() {
-        image.draw(location, HEIGHT);
-
-        for (int i = currNoteIndex; i < notes.size(); i++) {
-            notes.get(i).draw(location);
-        }
-
-        for (int j = currHoldNoteIndex; j < holdNotes.size(); j++) {
-            holdNotes.get(j).draw(location);
-        }
-
-        for (int k = currSpeedUpIndex; k < speedUpNotes.size(); k++) {
-            speedUpNotes.get(k).draw(location);
-        }
-
-        for (int l = currSlowDownIndex; l < slowDownNotes.size(); l++) {
-            slowDownNotes.get(l).draw(location);
-        }
+    public void draw(SpriteBatch batch, double alpha) {
+        batch.add(SpriteBatch.Layer.LANES, texture, location, HEIGHT);
 
-        for (int m = currDoubleScoreIndex; m < doubleScoreNotes.size(); m++) {
-            doubleScoreNotes.get(m).draw(location);
+        double offset = speeds.getNoteDrawOffset(alpha);
+        int tail = notes.getTail();
+        for (int i = notes.firstAbove(VISIBLE_BOTTOM); i < tail; i++) {
+            behaviours[notes.getType(i).ordinal()].draw(batch, notes, i, location, offset);
         }
-
-        for (int n = currBombIndex; n < bombNotes.size(); n++) {
-            bombNotes.get(n).draw(location);
+    }
+    /**
+     * Releases the shared textures of the Lane and its note behaviours.
+     * The Lane must not be used after it is disposed.
+     */
+    public void dispose() {
+        TextureCache.release(texture);
+        for (Note behaviour : behaviours) {
+            if (behaviour != null) {
+                behaviour.release();
+            }
         }
+        notes.clear();
     }
     /**
      * Gets the relevant key for the Lane.
@@ -289,13 +316,5 @@ public class Lane {
     public Keys getRelevantKey() {
         return this.relevantKey;
     }
-    /**
-     * Gets the list of Notes in the Lane.
-     *
-     * @return the list of Notes in the Lane
-     */
-    public List<Note> getNotes() {
-        return this.notes;
-    }
 
 }
@@ -0,0 +1,99 @@
+import bagel.*;
+
+/**
+ * The LatchedKeyInput class holds on to key presses and releases until a simulation tick reads them.
+ * On a display faster than the simulation, some rendered frames run no tick; the keys pressed
+ * and released on those frames are latched here and delivered to the next tick, so no key
+ * event is lost. When a frame runs several ticks, only the first one sees the events.
+ * The keys kept are the ones a Replay records.
+ * Key events can also be stamped with the time they happened on the song clock. Since a latched
+ * event is usually delivered to a later tick than the frame it happened on, each tick is told
+ * its own time, and reports each stamped event as an offset from it.
+ *
+ * Attributes:
+ * - MAX_OFFSET_MICROS: The largest offset reported, so a stale stamp cannot skew judgement far.
+ * - mask: The keys pressed and released since the last tick, as a Replay mask.
+ * - pressTimes, releaseTimes: The time of the first press and release of each key since the last
+ *   tick, in nanoseconds on the song clock.
+ * - pressStamped, releaseStamped: Booleans indicating which keys' presses and releases are stamped.
+ * - tickTime: The time of the tick reading the keys, in nanoseconds on the song clock.
+ */
+public class LatchedKeyInput implements KeyInput {
+    private static final long MAX_OFFSET_MICROS = 1_000_000L;
+    private int mask = 0;
+    private final long[] pressTimes = new long[Replay.KEY_COUNT];
+    private final long[] releaseTimes = new long[Replay.KEY_COUNT];
+    private final boolean[] pressStamped = new boolean[Replay.KEY_COUNT];
+    private final boolean[] releaseStamped = new boolean[Replay.KEY_COUNT];
+    private long tickTime = 0;
+    /**
+     * Adds the key presses and releases of a rendered frame.
+     *
+     * @param input the keyboard state for the frame
+     */
+    public void latch(KeyInput input) {
+        mask |= Replay.maskOf(input);
+    }
+    /**
+     * Records the time of a key press or release. Only the first press and the first
+     * release of each key since the last tick are kept.
+     *
+     * @param keyIndex the index of the key in Replay's keys
+     * @param pressed true for a press, false for a release
+     * @param time the time of the event, in nanoseconds on the song clock
+     */
+    public void stamp(int keyIndex, boolean pressed, long time) {
+        if (pressed && !pressStamped[keyIndex]) {
+            pressTimes[keyIndex] = time;
+            pressStamped[keyIndex] = true;
+        } else if (!pressed && !releaseStamped[keyIndex]) {
+            releaseTimes[keyIndex] = time;
+            releaseStamped[keyIndex] = true;
+        }
+    }
+    /**
+     * Sets the time of the tick about to read the keys, which offsets are measured from.
+     *
+     * @param tickTime the time of the tick, in nanoseconds on the song clock
+     */
+    public void setTickTime(long tickTime) {
+        this.tickTime = tickTime;
+    }
+    /**
+     * Forgets the latched key events, once a tick has read them.
+     */
+    public void clear() {
+        mask = 0;
+        for (int i = 0; i < Replay.KEY_COUNT; i++) {
+            pressStamped[i] = false;
+            releaseStamped[i] = false;
+        }
+    }
+
+    @Override
+    public boolean wasPressed(Keys key) {
+        return Replay.isPressed(mask, key);
+    }
+
+    @Override
+    public boolean wasReleased(Keys key) {
+        return Replay.isReleased(mask, key);
+    }
+
+    @Override
+    public int getPressOffset(Keys key) {
+        int i = Replay.indexOf(key);
+        return i >= 0 && pressStamped[i] ? offsetOf(pressTimes[i]) : 0;
+    }
+
+    @Override
+    public int getReleaseOffset(Keys key) {
+        int i = Replay.indexOf(key);
+        return i >= 0 && releaseStamped[i] ? offsetOf(releaseTimes[i]) : 0;
+    }
+
+    private int offsetOf(long time) {
+        long micros = (time - tickTime) / 1000;
+        return (int) Math.max(-MAX_OFFSET_MICROS, Math.min(MAX_OFFSET_MICROS, micros));
+    }
+}
@@ -0,0 +1,101 @@
+import java.util.Arrays;
+
+/**
+ * The LatencyHistogram class counts durations in log-linear buckets, in the style of HdrHistogram.
+ * Durations below 2 * SUB_BUCKETS nanoseconds each have their own bucket. Above that, every
+ * power of two is split into SUB_BUCKETS equal buckets, so a duration is recorded to within
+ * about 3 percent whatever its size. Recording is a few shifts and an increment, and never allocates.
+ *
+ * Attributes:
+ * - SUB_BUCKET_BITS, SUB_BUCKETS: The number of buckets each power of two is split into, as bits and as a count.
+ * - MAX_SHIFT: The largest power of two tracked; longer durations are counted in the last bucket.
+ * - counts: The number of durations in each bucket.
+ * - totalCount: The number of durations recorded.
+ * - max: The longest duration recorded.
+ */
+public class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int MAX_SHIFT = 40 - SUB_BUCKET_BITS;
+    private final long[] counts = new long[(MAX_SHIFT + 2) * SUB_BUCKETS];
+    private long totalCount = 0;
+    private long max = 0;
+    /**
+     * Records a duration.
+     *
+     * @param nanos the duration, in nanoseconds
+     */
+    public void record(long nanos) {
+        if (nanos < 0) {
+            nanos = 0;
+        }
+        counts[indexOf(nanos)]++;
+        totalCount++;
+        if (nanos > max) {
+            max = nanos;
+        }
+    }
+
+    private static int indexOf(long value) {
+        if (value < 2 * SUB_BUCKETS) {
+            return (int) value;
+        }
+        int shift = Math.min(MAX_SHIFT, 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS);
+        long subBucket = Math.min(2 * SUB_BUCKETS - 1, value >>> shift);
+        return (shift + 1) * SUB_BUCKETS + (int) (subBucket - SUB_BUCKETS);
+    }
+
+    private static long highestValueIn(int index) {
+        if (index < 2 * SUB_BUCKETS) {
+            return index;
+        }
+        int shift = index / SUB_BUCKETS - 1;
+        long subBucket = index % SUB_BUCKETS + SUB_BUCKETS;
+        return ((subBucket + 1) << shift) - 1;
+    }
+    /**
+     * Gets the duration at a percentile of the recorded durations.
+     * The value is the top of the bucket the percentile falls in, so it is never an underestimate.
+     *
+     * @param percentile the percentile, from 0 to 100
+     * @return the duration, in nanoseconds, or 0 if nothing has been recorded
+     */
+    public long getValueAtPercentile(double percentile) {
+        if (totalCount == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100.0 * totalCount));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.min(max, highestValueIn(i));
+            }
+        }
+        return max;
+    }
+    /**
+     * Gets the longest duration recorded.
+     *
+     * @return the duration, in nanoseconds
+     */
+    public long getMax() {
+        return max;
+    }
+    /**
+     * Gets the number of durations recorded.
+     *
+     * @return the number of durations
+     */
+    public long getTotalCount() {
+        return totalCount;
+    }
+    /**
+     * Forgets every duration recorded.
+     */
+    public void reset() {
+        Arrays.fill(counts, 0);
+        totalCount = 0;
+        max = 0;
+    }
+}
@@ -1,107 +1,91 @@
 import bagel.*;
-import bagel.util.Point;
 
 /*
  * I'll be using the full solution given by Project 1
  */
 
 /**
- * The Note class represents a note in the game.
- * When activated, it moves down the screen at a certain speed.
+ * The Note class represents the behaviour of a normal note in the game.
+ * The state of every note (position, whether it is active or completed) is kept in the
+ * NoteStore of its Lane; a Lane has one Note object per note type, which moves, draws and
+ * scores all the notes of that type. The other note types extend this class.
+ * When activated, a note moves down the screen at the speed given by its session's SpeedController.
  * It can be deactivated by pressing a key when it is within a certain distance from the target height.
  * 
  * Attributes:
- * - image: The image of the Note.
- * - appearanceFrame: The frame when the Note appears.
- * - speed: The speed of the Note.
- * - y: The y-coordinate of the Note.
- * - active: A boolean indicating whether the Note is active.
- * - completed: A boolean indicating whether the Note is completed.
- * - x: The x-coordinate of the Note.
+ * - START_Y: The y-coordinate a Note appears at.
+ * - texture: The shared texture of the notes of this type.
  */
 public class Note {
-    private final Image image;
-    private final int appearanceFrame;
-    private static int speed = 2;
-    protected int y = 100;
-    private boolean active = false;
-    private boolean completed = false;
-    private int x;
+    private static final int START_Y = 100;
+    protected final Texture texture;
     /**
-     * Constructs a Note with a given direction and appearance frame.
+     * Constructs the Note behaviour for a given lane direction.
      *
-     * @param dir the direction of the Note
-     * @param appearanceFrame the frame when the Note appears
+     * @param dir the direction of the lane
      */
-    public Note(String dir, int appearanceFrame) {
-        image = new Image("res/note" + dir + ".png");
-        this.appearanceFrame = appearanceFrame;
+    public Note(String dir) {
+        this(TextureCache.acquire("res/note" + dir + ".png"));
     }
     /**
-     * Checks if the Note is active.
+     * Constructs a Note behaviour with a given texture.
+     * Used by note types whose texture is not named after the lane direction.
      *
-     * @return true if the Note is active, false otherwise
+     * @param texture the shared texture of the notes of this type
      */
-    public boolean isActive() {
-        return active;
+    protected Note(Texture texture) {
+        this.texture = texture;
     }
     /**
-     * Checks if the Note is completed.
+     * Gets the type of note this object is the behaviour of.
      *
-     * @return true if the Note is completed, false otherwise
+     * @return the type of the note
      */
-    public boolean isCompleted() {
-        return completed;
+    public NoteType getType() {
+        return NoteType.NORMAL;
     }
     /**
-     * Deactivates the Note and marks it as completed.
-     */
-    public void deactivate() {
-        active = false;
-        completed = true;
-    }
-    /**
-     * Updates the state of the Note.
-     * If the Note is active, it moves down the screen.
-     * If the current frame is greater than or equal to the appearance frame and the Note is not completed, it is activated.
+     * Gets the y-coordinate a note of this type appears at.
+     *
+     * @return the starting y-coordinate
      */
-    public void update() {
-        if (active) {
-            y += speed;
-        }
-
-        if (ShadowDance.getCurrFrame() >= appearanceFrame && !completed) {
-            active = true;
-        }
+    public int getStartY() {
+        return START_Y;
     }
     /**
-     * Draws the Note on the screen at a given x-coordinate.
-     * The Note is only drawn if it is active.
+     * Adds a note to the notes layer of a sprite batch at a given x-coordinate.
+     * The note is only drawn if it is active.
      *
-     * @param x the x-coordinate where the Note is drawn
+     * @param batch the sprite batch of the frame
+     * @param notes the store holding the note
+     * @param i the index of the note
+     * @param x the x-coordinate where the note is drawn
+     * @param offset how far the note has scrolled since the current frame, for drawing between frames
      */
-    public void draw(int x) {
-        this.x = x;
-        if (active) {
-            image.draw(x, y);
+    public void draw(SpriteBatch batch, NoteStore notes, int i, int x, double offset) {
+        if (notes.isActive(i)) {
+            batch.add(SpriteBatch.Layer.NOTES, texture, x, notes.getY(i) + offset);
         }
     }
     /**
-     * Checks the score for the Note.
-     * If the Note is active and within a certain distance from the target height when a key is pressed, it is deactivated and a score is returned.
-     * If the Note has passed the target height, it is deactivated and a miss score is returned.
+     * Checks the score for a note.
+     * If the note is active and the key is pressed within a certain time of the note reaching the target height, it is deactivated and a score is returned.
+     * If the note has passed the target height, it is deactivated and a miss score is returned.
      *
-     * @param input the current input (keyboard and mouse state)
+     * @param notes the store holding the note
+     * @param i the index of the note
+     * @param keys the press and release of the lane's key on the current frame
      * @param accuracy the current accuracy
-     * @param targetHeight the target height for the Note
-     * @param relevantKey the key that deactivates the Note
-     * @return the score for the Note
+     * @param targetHeight the target height for the note
+     * @return the score for the note
      */
-    public int checkScore(Input input, Accuracy accuracy, int targetHeight, Keys relevantKey) {
-        if (isActive()) {
-            int score = accuracy.evaluateScore(y, targetHeight, input.wasPressed(relevantKey));
+    public int checkScore(NoteStore notes, int i, KeyTiming keys, Accuracy accuracy, int targetHeight) {
+        if (notes.isActive(i)) {
+            int score = keys.wasPressed()
+                    ? accuracy.evaluateScore(keys.pressError(notes, i, targetHeight))
+                    : accuracy.evaluateMiss(notes.getY(i));
             if (score != Accuracy.NOT_SCORED) {
-                deactivate();
+                notes.deactivate(i);
                 return score;
             }
 
@@ -110,34 +94,34 @@ public class Note {
         return 0;
     }
     /**
-     * Increases the speed of the note by 1.
-     */
-    public static void increaseSpeed() {
-        speed++;
-    }
-    /**
-     * Decrease the speed of the note by 1.
+     * Gets the deadline of a note: the distance scrolled at which checkScore finishes it
+     * without a key event. Until then, checkScore only changes a note when its key is pressed
+     * or released, so a Lane need not judge it on frames without one.
+     * A note is missed once it reaches the bottom of the window.
+     *
+     * @param notes the store holding the note
+     * @param i the index of the note
+     * @param targetHeight the target height for the note
+     * @return the deadline, as a distance scrolled from the start of the song
      */
-    public static void decreaseSpeed() {
-        if (speed > 1) {
-            speed--;
-        }
+    public long getDeadline(NoteStore notes, int i, int targetHeight) {
+        return notes.distanceAt(i, Accuracy.WINDOW_HEIGHT);
     }
     /**
-     * Gets the current position of the Note.
+     * Gets the y-coordinate of the centre of a note, used for collisions.
      *
-     * @param x the x-coordinate of the Note
-     * @return the current position of the Note
+     * @param notes the store holding the note
+     * @param i the index of the note
+     * @return the y-coordinate of the centre of the note
      */
-    public Point getPosition(int x) {
-        return new Point(x, y + image.getHeight() / 2.0);
+    public double getCentreY(NoteStore notes, int i) {
+        return notes.getY(i) + texture.getHeight() / 2.0;
     }
     /**
-     * Gets the x-coordinate of the Note.
-     *
-     * @return the x-coordinate of the Note
+     * Releases the shared texture of the notes of this type.
+     * No notes of this type may be drawn after it is released.
      */
-    public int getX() {
-        return this.x;
+    public void release() {
+        TextureCache.release(texture);
     }
 }
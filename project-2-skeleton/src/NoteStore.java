@@ -0,0 +1,257 @@
+import java.util.Arrays;
+
+/**
+ * The NoteStore class holds the notes of a Lane in primitive arrays, one entry per note.
+ * Notes are stored in order of appearance. The notes between the head (the first note that
+ * is not finished) and the tail (the end of the notes added so far) are the live window;
+ * finished notes before the head are dropped by compact, so the arrays only ever hold the
+ * notes on screen. The behaviour of each note comes from the Note object for its type.
+ * Positions are not stepped each frame: each note stores its origin, the y-coordinate it
+ * would have had if it had been on screen from the start of the song, and its position is
+ * that origin plus the distance the SpeedTimeline has scrolled by the current frame.
+ * Since notes are added in order of appearance, the distance each note has scrolled since it
+ * appeared never increases from the head to the tail, so the notes that have scrolled off the
+ * bottom of the window are always at the front of the live window and can be found by binary search.
+ *
+ * Attributes:
+ * - ACTIVE, COMPLETED, HOLD_STARTED, EATEN: The bits of a note's state.
+ * - INITIAL_CAPACITY: The initial length of the arrays.
+ * - types: The NoteType code of each note.
+ * - appearanceFrames: The frame each note appears on.
+ * - origins: The y-coordinate of each note less the distance scrolled when it appeared.
+ * - appearanceDistances: The distance scrolled by the frame each note appeared on.
+ * - minStartY: The smallest y-coordinate any note has appeared at.
+ * - states: The state bits of each note.
+ * - distance: The distance scrolled by the current frame.
+ * - head: The index of the first note that is not finished.
+ * - tail: The index after the last note added.
+ */
+public class NoteStore {
+    private static final byte ACTIVE = 1;
+    private static final byte COMPLETED = 2;
+    private static final byte HOLD_STARTED = 4;
+    private static final byte EATEN = 8;
+    private static final int INITIAL_CAPACITY = 16;
+    private byte[] types = new byte[INITIAL_CAPACITY];
+    private int[] appearanceFrames = new int[INITIAL_CAPACITY];
+    private long[] origins = new long[INITIAL_CAPACITY];
+    private long[] appearanceDistances = new long[INITIAL_CAPACITY];
+    private byte[] states = new byte[INITIAL_CAPACITY];
+    private long distance = 0;
+    private int minStartY = Integer.MAX_VALUE;
+    private int head = 0;
+    private int tail = 0;
+    /**
+     * Adds an active note to the end of the store, on the frame it appears.
+     * Notes must be added in order of appearance.
+     *
+     * @param type the type of the note
+     * @param appearanceFrame the frame the note appears on
+     * @param startY the y-coordinate the note appears at
+     * @param appearanceDistance the distance scrolled by the frame the note appears on
+     */
+    public void add(NoteType type, int appearanceFrame, int startY, long appearanceDistance) {
+        if (tail == types.length) {
+            int capacity = tail * 2;
+            types = Arrays.copyOf(types, capacity);
+            appearanceFrames = Arrays.copyOf(appearanceFrames, capacity);
+            origins = Arrays.copyOf(origins, capacity);
+            appearanceDistances = Arrays.copyOf(appearanceDistances, capacity);
+            states = Arrays.copyOf(states, capacity);
+        }
+        types[tail] = (byte) type.ordinal();
+        appearanceFrames[tail] = appearanceFrame;
+        origins[tail] = startY - appearanceDistance;
+        appearanceDistances[tail] = appearanceDistance;
+        minStartY = Math.min(minStartY, startY);
+        states[tail] = ACTIVE;
+        tail++;
+    }
+    /**
+     * Sets the distance scrolled by the current frame, which moves every note at once.
+     *
+     * @param distance the distance scrolled from the start of the song
+     */
+    public void setDistance(long distance) {
+        this.distance = distance;
+    }
+    /**
+     * Finds the first note of the live window that may be above a given y-coordinate.
+     * Every note from the head up to the returned index is at or below the y-coordinate.
+     * A note is at least as low as the lowest start y-coordinate plus the distance it has
+     * scrolled since it appeared, which never increases along the window, so a binary search
+     * finds the boundary. Notes after it that start lower may still be below the y-coordinate.
+     *
+     * @param bottom the y-coordinate
+     * @return the index of the first note that may be above bottom, or the tail if there is none
+     */
+    public int firstAbove(int bottom) {
+        int low = head;
+        int high = tail;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (minStartY + distance - appearanceDistances[mid] >= bottom) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+    /**
+     * Moves the head past the finished notes at the front of the live window.
+     *
+     * @return the number of notes the head moved past
+     */
+    public int advanceHead() {
+        int start = head;
+        while (head < tail && (states[head] & COMPLETED) != 0) {
+            head++;
+        }
+        return head - start;
+    }
+    /**
+     * Drops the finished notes before the head by moving the live window to the front of the arrays.
+     */
+    public void compact() {
+        int live = tail - head;
+        System.arraycopy(types, head, types, 0, live);
+        System.arraycopy(appearanceFrames, head, appearanceFrames, 0, live);
+        System.arraycopy(origins, head, origins, 0, live);
+        System.arraycopy(appearanceDistances, head, appearanceDistances, 0, live);
+        System.arraycopy(states, head, states, 0, live);
+        head = 0;
+        tail = live;
+    }
+    /**
+     * Removes all the notes from the store.
+     */
+    public void clear() {
+        head = 0;
+        tail = 0;
+    }
+    /**
+     * Gets the index of the first note that is not finished.
+     *
+     * @return the head index
+     */
+    public int getHead() {
+        return head;
+    }
+    /**
+     * Gets the index after the last note added.
+     *
+     * @return the tail index
+     */
+    public int getTail() {
+        return tail;
+    }
+    /**
+     * Gets the type of a note.
+     *
+     * @param i the index of the note
+     * @return the type of the note
+     */
+    public NoteType getType(int i) {
+        return NoteType.fromCode(types[i]);
+    }
+    /**
+     * Gets the y-coordinate of a note.
+     *
+     * @param i the index of the note
+     * @return the y-coordinate of the note
+     */
+    public int getY(int i) {
+        return (int) (origins[i] + distance);
+    }
+    /**
+     * Gets the distance scrolled at which a note reaches a given y-coordinate.
+     * Notes only move down, so the note is at or below the y-coordinate once the distance
+     * scrolled reaches this value, whatever the speed changes in between.
+     *
+     * @param i the index of the note
+     * @param y the y-coordinate
+     * @return the distance scrolled from the start of the song
+     */
+    public long distanceAt(int i, int y) {
+        return y - origins[i];
+    }
+    /**
+     * Gets the distance scrolled by the current frame.
+     *
+     * @return the distance scrolled from the start of the song
+     */
+    public long getDistance() {
+        return distance;
+    }
+    /**
+     * Gets the frame a note appeared on.
+     *
+     * @param i the index of the note
+     * @return the appearance frame of the note
+     */
+    public int getAppearanceFrame(int i) {
+        return appearanceFrames[i];
+    }
+    /**
+     * Checks if a note is active.
+     *
+     * @param i the index of the note
+     * @return true if the note is active, false otherwise
+     */
+    public boolean isActive(int i) {
+        return (states[i] & ACTIVE) != 0;
+    }
+    /**
+     * Checks if a note is completed.
+     *
+     * @param i the index of the note
+     * @return true if the note is completed, false otherwise
+     */
+    public boolean isCompleted(int i) {
+        return (states[i] & COMPLETED) != 0;
+    }
+    /**
+     * Deactivates a note and marks it as completed.
+     *
+     * @param i the index of the note
+     */
+    public void deactivate(int i) {
+        states[i] = COMPLETED;
+    }
+    /**
+     * Marks a note as eaten by an enemy. The note stays in the store as a tombstone,
+     * completed without a score, until the head moves past it.
+     *
+     * @param i the index of the note
+     */
+    public void eat(int i) {
+        states[i] = COMPLETED | EATEN;
+    }
+    /**
+     * Checks if a note was eaten by an enemy.
+     *
+     * @param i the index of the note
+     * @return true if the note was eaten, false otherwise
+     */
+    public boolean isEaten(int i) {
+        return (states[i] & EATEN) != 0;
+    }
+    /**
+     * Checks if the hold of a hold note has started.
+     *
+     * @param i the index of the note
+     * @return true if the hold has started, false otherwise
+     */
+    public boolean isHoldStarted(int i) {
+        return (states[i] & HOLD_STARTED) != 0;
+    }
+    /**
+     * Starts the hold of a hold note.
+     *
+     * @param i the index of the note
+     */
+    public void startHold(int i) {
+        states[i] |= HOLD_STARTED;
+    }
+}
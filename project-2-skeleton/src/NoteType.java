@@ -0,0 +1,54 @@
+/**
+ * The NoteType enum lists the kinds of notes a chart can contain.
+ * The ordinal of each type is its code in the compiled chart format, so new types
+ * must only be added at the end.
+ *
+ * Attributes:
+ * - csvName: The name of the type in chart CSV files.
+ */
+public enum NoteType {
+    NORMAL("Normal"),
+    HOLD("Hold"),
+    SPEED_UP("SpeedUp"),
+    SLOW_DOWN("SlowDown"),
+    DOUBLE_SCORE("DoubleScore"),
+    BOMB("Bomb");
+
+    private static final NoteType[] VALUES = values();
+    private final String csvName;
+
+    NoteType(String csvName) {
+        this.csvName = csvName;
+    }
+    /**
+     * Gets the name of the type in chart CSV files.
+     *
+     * @return the CSV name of the type
+     */
+    public String getCsvName() {
+        return csvName;
+    }
+    /**
+     * Gets the NoteType with a given CSV name.
+     *
+     * @param csvName the CSV name of the type
+     * @return the NoteType, or null if there is no type with that name
+     */
+    public static NoteType fromCsvName(String csvName) {
+        for (NoteType type : VALUES) {
+            if (type.csvName.equals(csvName)) {
+                return type;
+            }
+        }
+        return null;
+    }
+    /**
+     * Gets the NoteType with a given code.
+     *
+     * @param code the code (ordinal) of the type
+     * @return the NoteType with that code
+     */
+    public static NoteType fromCode(int code) {
+        return VALUES[code];
+    }
+}
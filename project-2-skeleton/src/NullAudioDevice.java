@@ -0,0 +1,85 @@
+import java.util.function.LongSupplier;
+
+/**
+ * The NullAudioDevice class is a silent AudioDevice whose position follows a clock.
+ * It stands in for the real device when no audio output is available, and lets tests drive
+ * the song position from a clock they control.
+ *
+ * Attributes:
+ * - sampleRate: The number of sample frames per second.
+ * - lengthFrames: The length of the song in sample frames, or -1 for a song that never ends.
+ * - nanoTime: The clock the position follows, in nanoseconds.
+ * - playedNanos: The time played before the current stretch of playing.
+ * - playStart: The clock time playing last started, or -1 if not playing.
+ */
+public class NullAudioDevice implements AudioDevice {
+    private final int sampleRate;
+    private final long lengthFrames;
+    private final LongSupplier nanoTime;
+    private long playedNanos = 0;
+    private long playStart = -1;
+    /**
+     * Constructs a NullAudioDevice for a song of a given length.
+     *
+     * @param sampleRate the number of sample frames per second
+     * @param lengthFrames the length of the song in sample frames, or -1 for a song that never ends
+     * @param nanoTime the clock the position follows, such as System::nanoTime
+     */
+    public NullAudioDevice(int sampleRate, long lengthFrames, LongSupplier nanoTime) {
+        this.sampleRate = sampleRate;
+        this.lengthFrames = lengthFrames;
+        this.nanoTime = nanoTime;
+    }
+
+    @Override
+    public void play() {
+        if (playStart < 0 && !isFinished()) {
+            playStart = nanoTime.getAsLong();
+        }
+    }
+
+    @Override
+    public void pause() {
+        if (playStart >= 0) {
+            playedNanos += nanoTime.getAsLong() - playStart;
+            playStart = -1;
+        }
+    }
+
+    @Override
+    public void update() {
+        if (playStart >= 0 && isFinished()) {
+            pause();
+        }
+    }
+
+    @Override
+    public boolean isPlaying() {
+        return playStart >= 0 && !isFinished();
+    }
+
+    private boolean isFinished() {
+        return lengthFrames >= 0 && unclampedPosition() >= lengthFrames;
+    }
+
+    private long unclampedPosition() {
+        long nanos = playedNanos + (playStart >= 0 ? nanoTime.getAsLong() - playStart : 0);
+        return nanos * sampleRate / 1_000_000_000L;
+    }
+
+    @Override
+    public long getSamplePosition() {
+        long position = unclampedPosition();
+        return lengthFrames >= 0 ? Math.min(position, lengthFrames) : position;
+    }
+
+    @Override
+    public int getSampleRate() {
+        return sampleRate;
+    }
+
+    @Override
+    public void close() {
+        pause();
+    }
+}
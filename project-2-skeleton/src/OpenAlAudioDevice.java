@@ -0,0 +1,195 @@
+import org.lwjgl.openal.AL;
+import org.lwjgl.openal.AL10;
+import org.lwjgl.openal.AL11;
+import org.lwjgl.openal.ALC;
+import org.lwjgl.openal.ALC10;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+
+/**
+ * The OpenAlAudioDevice class streams a WAV file to the default OpenAL output device.
+ * The file is never loaded whole: a few short OpenAL buffers are queued on one source and
+ * form a ring, and each frame the buffers the source has finished playing are refilled with
+ * the next chunk of the file and queued again. The playback position is the number of sample
+ * frames in the buffers played so far plus the source's offset into the buffer it is playing.
+ *
+ * Attributes:
+ * - BUFFER_COUNT: The number of OpenAL buffers in the ring.
+ * - BUFFER_FRAMES: The number of sample frames in each buffer, about 93 ms at 44.1 kHz.
+ * - stream: The WAV file being played.
+ * - device, context: The OpenAL device and context.
+ * - source: The OpenAL source the buffers are queued on.
+ * - buffers: The OpenAL buffers of the ring.
+ * - queuedFrames: The number of sample frames in each queued buffer, in queue order.
+ * - queueHead, queueSize: The start and length of the queue in queuedFrames.
+ * - staging: The buffer each chunk of the file is read into before it is handed to OpenAL.
+ * - format: The OpenAL format of the samples.
+ * - playedFrames: The number of sample frames in the buffers already played and unqueued.
+ * - playing: A boolean indicating whether the song should be playing.
+ */
+public class OpenAlAudioDevice implements AudioDevice {
+    private static final int BUFFER_COUNT = 4;
+    private static final int BUFFER_FRAMES = 4096;
+    private final WavStream stream;
+    private final long device;
+    private final long context;
+    private final int source;
+    private final int[] buffers = new int[BUFFER_COUNT];
+    private final int[] queuedFrames = new int[BUFFER_COUNT];
+    private int queueHead = 0;
+    private int queueSize = 0;
+    private final ByteBuffer staging;
+    private final int format;
+    private long playedFrames = 0;
+    private boolean playing = false;
+    /**
+     * Opens the default audio device and queues the start of a WAV file, paused.
+     * If any step fails, everything opened so far is released before the exception is thrown.
+     *
+     * @param wavFilePath the path to the WAV file
+     * @throws IOException if the file cannot be read, or no audio device can be opened
+     */
+    public OpenAlAudioDevice(String wavFilePath) throws IOException {
+        stream = new WavStream(wavFilePath);
+        try {
+            device = ALC10.alcOpenDevice((ByteBuffer) null);
+            if (device == 0) {
+                throw new IOException("no audio device");
+            }
+            context = ALC10.alcCreateContext(device, (IntBuffer) null);
+            if (context == 0 || !ALC10.alcMakeContextCurrent(context)) {
+                throw new IOException("cannot create an audio context");
+            }
+            AL.createCapabilities(ALC.createCapabilities(device));
+
+            if (stream.getChannels() == 1) {
+                format = stream.getBitsPerSample() == 8 ? AL10.AL_FORMAT_MONO8 : AL10.AL_FORMAT_MONO16;
+            } else {
+                format = stream.getBitsPerSample() == 8 ? AL10.AL_FORMAT_STEREO8 : AL10.AL_FORMAT_STEREO16;
+            }
+            staging = ByteBuffer.allocateDirect(BUFFER_FRAMES * stream.getFrameBytes());
+            source = AL10.alGenSources();
+            for (int i = 0; i < BUFFER_COUNT; i++) {
+                buffers[i] = AL10.alGenBuffers();
+                if (!fill(buffers[i])) {
+                    break;
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            release();
+            throw e;
+        }
+    }
+    /**
+     * Reads the next chunk of the file into an OpenAL buffer and queues it.
+     *
+     * @param buffer the OpenAL buffer to fill
+     * @return true if the buffer was queued, false at the end of the file
+     */
+    private boolean fill(int buffer) throws IOException {
+        staging.clear();
+        int frames = stream.read(staging);
+        if (frames == 0) {
+            return false;
+        }
+        staging.flip();
+        AL10.alBufferData(buffer, format, staging, stream.getSampleRate());
+        AL10.alSourceQueueBuffers(source, buffer);
+        queuedFrames[(queueHead + queueSize) % BUFFER_COUNT] = frames;
+        queueSize++;
+        return true;
+    }
+
+    @Override
+    public void play() {
+        playing = true;
+        if (queueSize > 0) {
+            AL10.alSourcePlay(source);
+        }
+    }
+
+    @Override
+    public void pause() {
+        playing = false;
+        AL10.alSourcePause(source);
+    }
+    /**
+     * Refills and requeues the buffers the source has finished playing.
+     * If the source ran dry because frames were too slow to refill it, playback restarts.
+     * A file that can no longer be read ends the song.
+     */
+    @Override
+    public void update() {
+        try {
+            int processed = AL10.alGetSourcei(source, AL10.AL_BUFFERS_PROCESSED);
+            for (int i = 0; i < processed; i++) {
+                int buffer = AL10.alSourceUnqueueBuffers(source);
+                playedFrames += queuedFrames[queueHead];
+                queueHead = (queueHead + 1) % BUFFER_COUNT;
+                queueSize--;
+                fill(buffer);
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+            playing = false;
+        }
+        if (playing && queueSize > 0 && AL10.alGetSourcei(source, AL10.AL_SOURCE_STATE) == AL10.AL_STOPPED) {
+            AL10.alSourcePlay(source);
+        } else if (queueSize == 0) {
+            playing = false;
+        }
+    }
+
+    @Override
+    public boolean isPlaying() {
+        return playing && AL10.alGetSourcei(source, AL10.AL_SOURCE_STATE) == AL10.AL_PLAYING;
+    }
+
+    @Override
+    public long getSamplePosition() {
+        if (queueSize == 0) {
+            return playedFrames;
+        }
+        return playedFrames + AL10.alGetSourcei(source, AL11.AL_SAMPLE_OFFSET);
+    }
+
+    @Override
+    public int getSampleRate() {
+        return stream.getSampleRate();
+    }
+
+    @Override
+    public void close() {
+        release();
+    }
+    /**
+     * Deletes the source and buffers, destroys the context, closes the device and closes the file.
+     * Anything that was never created is skipped, so a constructor that fails part way through
+     * can release what it opened.
+     */
+    private void release() {
+        if (source != 0) {
+            AL10.alSourceStop(source);
+            AL10.alDeleteSources(source);
+        }
+        for (int buffer : buffers) {
+            if (buffer != 0) {
+                AL10.alDeleteBuffers(buffer);
+            }
+        }
+        if (context != 0) {
+            ALC10.alcMakeContextCurrent(0);
+            ALC10.alcDestroyContext(context);
+        }
+        if (device != 0) {
+            ALC10.alcCloseDevice(device);
+        }
+        try {
+            stream.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+}
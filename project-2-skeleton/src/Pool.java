@@ -0,0 +1,110 @@
+import java.util.ArrayList;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * The Pool class is a bounded set of reusable entities, such as arrows and enemies.
+ * Every entity is created up front, so spawning one during play only hands out an
+ * entity that already exists, and despawning it only moves it back to the free part.
+ * The entities in use are kept at the front of the pool in no particular order;
+ * freeing one swaps it with the last entity in use, so removal is constant time and
+ * never shifts the rest.
+ *
+ * Attributes:
+ * - entities: Every entity in the pool, the ones in use first.
+ * - used: The number of entities in use.
+ *
+ * @param <T> the type of entity in the pool
+ */
+public class Pool<T> {
+    private final ArrayList<T> entities;
+    private int used = 0;
+    /**
+     * Constructs a Pool and creates all of its entities.
+     *
+     * @param capacity the largest number of entities that can be in use at once
+     * @param factory creates each entity
+     */
+    public Pool(int capacity, Supplier<T> factory) {
+        entities = new ArrayList<>(capacity);
+        for (int i = 0; i < capacity; i++) {
+            entities.add(factory.get());
+        }
+    }
+    /**
+     * Takes a free entity and puts it in use.
+     * The caller is responsible for resetting the entity's state.
+     *
+     * @return the entity, or null if every entity is in use
+     */
+    public T obtain() {
+        if (used == entities.size()) {
+            return null;
+        }
+        return entities.get(used++);
+    }
+    /**
+     * Frees the entity in use at a given index, moving the last entity in use into its place.
+     * When freeing while looping over the pool, loop from the end so no entity is skipped.
+     *
+     * @param i the index of the entity, from 0 to size - 1
+     */
+    public void free(int i) {
+        used--;
+        T entity = entities.get(i);
+        entities.set(i, entities.get(used));
+        entities.set(used, entity);
+    }
+    /**
+     * Frees every entity.
+     */
+    public void clear() {
+        used = 0;
+    }
+    /**
+     * Gets an entity in use.
+     *
+     * @param i the index of the entity, from 0 to size - 1
+     * @return the entity
+     */
+    public T get(int i) {
+        return entities.get(i);
+    }
+    /**
+     * Gets the number of entities in use.
+     *
+     * @return the number of entities in use
+     */
+    public int size() {
+        return used;
+    }
+    /**
+     * Gets the largest number of entities that can be in use at once.
+     *
+     * @return the capacity of the pool
+     */
+    public int getCapacity() {
+        return entities.size();
+    }
+    /**
+     * Checks if no entities are in use.
+     *
+     * @return true if no entities are in use, false otherwise
+     */
+    public boolean isEmpty() {
+        return used == 0;
+    }
+    /**
+     * Releases every entity in the pool, whether or not it is in use.
+     * The pool must not be used after it is disposed.
+     *
+     * @param release releases the resources of an entity
+     */
+    public void dispose(Consumer<T> release) {
+        for (T entity : entities) {
+            release.accept(entity);
+        }
+        entities.clear();
+        used = 0;
+    }
+}
@@ -0,0 +1,340 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+import bagel.*;
+
+/**
+ * The Replay class is a recording of the keys pressed and released while playing a level.
+ * It records, for each gameplay frame, which of the recorded keys were pressed and released,
+ * as a bit mask. Only frames where something happened are stored, so a replay holds one
+ * entry per key event rather than one per frame.
+ * With each key event it keeps the event's offset from the time of its frame, in microseconds,
+ * so the play is judged the same way when it is played back.
+ * A replay also stores the chart and the enemy seed of the play, so playing it back
+ * through a GameplayController reproduces the play exactly.
+ *
+ * File format (big-endian):
+ * - int MAGIC, byte VERSION
+ * - UTF chartPath, byte enemiesEnabled, long seed
+ * - varint length, the number of gameplay frames recorded
+ * - varint count, then for each entry: varint frames since the previous entry, varint mask,
+ *   then a zigzag varint offset for each bit set in the mask, lowest bit first
+ * Version 1 files have no offsets; they are read with every offset 0.
+ *
+ * Attributes:
+ * - MAGIC, VERSION: The header of the file format.
+ * - OLDEST_VERSION: The oldest version that can still be read.
+ * - KEYS: The recorded keys; key i is pressed in bit i of a mask and released in bit KEYS.length + i.
+ * - KEY_COUNT: The number of recorded keys.
+ * - chartPath: The path of the chart played.
+ * - enemiesEnabled: A boolean indicating whether enemies and the guardian took part.
+ * - seed: The seed of the session's random number generator.
+ * - frames: The gameplay frame of each entry, in increasing order.
+ * - masks: The pressed and released keys of each entry.
+ * - offsetStarts: The index in offsets of the first offset of each entry.
+ * - offsets: The offset of each key event, in the order of the entries and their mask bits.
+ * - offsetCount: The number of offsets.
+ * - count: The number of entries.
+ * - length: The number of gameplay frames recorded.
+ */
+public class Replay {
+    private static final int MAGIC = 0x53445250; // "SDRP"
+    private static final int VERSION = 2;
+    private static final int OLDEST_VERSION = 1;
+    private static final Keys[] KEYS = {
+            Keys.LEFT, Keys.RIGHT, Keys.UP, Keys.DOWN, Keys.SPACE, Keys.LEFT_SHIFT, Keys.TAB
+    };
+    static final int KEY_COUNT = KEYS.length;
+    private final String chartPath;
+    private final boolean enemiesEnabled;
+    private final long seed;
+    private int[] frames = new int[64];
+    private int[] masks = new int[64];
+    private int[] offsetStarts = new int[64];
+    private int[] offsets = new int[64];
+    private int offsetCount = 0;
+    private int count = 0;
+    private int length = 0;
+    /**
+     * Constructs an empty Replay for a play of a chart.
+     *
+     * @param chartPath the path of the chart played
+     * @param enemiesEnabled true if enemies and the guardian take part, false otherwise
+     * @param seed the seed of the session's random number generator
+     */
+    public Replay(String chartPath, boolean enemiesEnabled, long seed) {
+        this.chartPath = chartPath;
+        this.enemiesEnabled = enemiesEnabled;
+        this.seed = seed;
+    }
+    /**
+     * Gets the mask of the recorded keys pressed and released during the current frame.
+     *
+     * @param input the keyboard state for the frame
+     * @return the mask of the keys
+     */
+    public static int maskOf(KeyInput input) {
+        int mask = 0;
+        for (int i = 0; i < KEYS.length; i++) {
+            if (input.wasPressed(KEYS[i])) {
+                mask |= 1 << i;
+            }
+            if (input.wasReleased(KEYS[i])) {
+                mask |= 1 << (KEYS.length + i);
+            }
+        }
+        return mask;
+    }
+    /**
+     * Checks if a mask has a key pressed.
+     *
+     * @param mask the mask of the keys
+     * @param key the key to check
+     * @return true if the key is recorded and pressed in the mask, false otherwise
+     */
+    public static boolean isPressed(int mask, Keys key) {
+        int i = indexOf(key);
+        return i >= 0 && (mask & (1 << i)) != 0;
+    }
+    /**
+     * Checks if a mask has a key released.
+     *
+     * @param mask the mask of the keys
+     * @param key the key to check
+     * @return true if the key is recorded and released in the mask, false otherwise
+     */
+    public static boolean isReleased(int mask, Keys key) {
+        int i = indexOf(key);
+        return i >= 0 && (mask & (1 << (KEYS.length + i))) != 0;
+    }
+    /**
+     * Gets the index of a recorded key: the bit it is pressed in, in a mask.
+     *
+     * @param key the key
+     * @return the index of the key, or -1 if the key is not recorded
+     */
+    static int indexOf(Keys key) {
+        for (int i = 0; i < KEYS.length; i++) {
+            if (KEYS[i] == key) {
+                return i;
+            }
+        }
+        return -1;
+    }
+    /**
+     * Records the keys of the next gameplay frame.
+     *
+     * @param input the keyboard state for the frame
+     */
+    public void record(KeyInput input) {
+        int mask = maskOf(input);
+        if (mask != 0) {
+            if (count == frames.length) {
+                frames = Arrays.copyOf(frames, count * 2);
+                masks = Arrays.copyOf(masks, count * 2);
+                offsetStarts = Arrays.copyOf(offsetStarts, count * 2);
+            }
+            frames[count] = length;
+            masks[count] = mask;
+            offsetStarts[count] = offsetCount;
+            for (int bit = 0; bit < 2 * KEYS.length; bit++) {
+                if ((mask & (1 << bit)) != 0) {
+                    addOffset(bit < KEYS.length
+                            ? input.getPressOffset(KEYS[bit])
+                            : input.getReleaseOffset(KEYS[bit - KEYS.length]));
+                }
+            }
+            count++;
+        }
+        length++;
+    }
+
+    private void addOffset(int offset) {
+        if (offsetCount == offsets.length) {
+            offsets = Arrays.copyOf(offsets, offsetCount * 2);
+        }
+        offsets[offsetCount++] = offset;
+    }
+    /**
+     * Writes the replay to a file.
+     *
+     * @param filePath the path to write the replay to
+     * @throws IOException if the file cannot be written
+     */
+    public void write(String filePath) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(filePath)))) {
+            out.writeInt(MAGIC);
+            out.writeByte(VERSION);
+            out.writeUTF(chartPath);
+            out.writeBoolean(enemiesEnabled);
+            out.writeLong(seed);
+            writeVarint(out, length);
+            writeVarint(out, count);
+            int previous = 0;
+            for (int i = 0; i < count; i++) {
+                writeVarint(out, frames[i] - previous);
+                writeVarint(out, masks[i]);
+                int end = offsetStarts[i] + Integer.bitCount(masks[i]);
+                for (int k = offsetStarts[i]; k < end; k++) {
+                    // zigzag, so small negative offsets stay short
+                    writeVarint(out, (offsets[k] << 1) ^ (offsets[k] >> 31));
+                }
+                previous = frames[i];
+            }
+        }
+    }
+    /**
+     * Reads a replay from a file.
+     *
+     * @param filePath the path to the replay
+     * @return the replay
+     * @throws IOException if the file cannot be read or is not a replay
+     */
+    public static Replay read(String filePath) throws IOException {
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(new FileInputStream(filePath)))) {
+            int version = in.readInt() == MAGIC ? in.readByte() : -1;
+            if (version < OLDEST_VERSION || version > VERSION) {
+                throw new IOException(filePath + " is not a replay");
+            }
+            Replay replay = new Replay(in.readUTF(), in.readBoolean(), in.readLong());
+            replay.length = readVarint(in);
+            replay.count = readVarint(in);
+            replay.frames = new int[Math.max(1, replay.count)];
+            replay.masks = new int[replay.frames.length];
+            replay.offsetStarts = new int[replay.frames.length];
+            int frame = 0;
+            for (int i = 0; i < replay.count; i++) {
+                frame += readVarint(in);
+                replay.frames[i] = frame;
+                replay.masks[i] = readVarint(in);
+                replay.offsetStarts[i] = replay.offsetCount;
+                for (int k = Integer.bitCount(replay.masks[i]); k > 0; k--) {
+                    int zigzag = version >= 2 ? readVarint(in) : 0;
+                    replay.addOffset((zigzag >>> 1) ^ -(zigzag & 1));
+                }
+            }
+            return replay;
+        }
+    }
+
+    private static void writeVarint(DataOutputStream out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    private static int readVarint(DataInputStream in) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            int b = in.read();
+            if (b < 0) {
+                throw new EOFException();
+            }
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("malformed varint");
+    }
+    /**
+     * Gets the path of the chart played.
+     *
+     * @return the chart path
+     */
+    public String getChartPath() {
+        return chartPath;
+    }
+    /**
+     * Checks if enemies and the guardian took part in the play.
+     *
+     * @return true if enemies were enabled, false otherwise
+     */
+    public boolean isEnemiesEnabled() {
+        return enemiesEnabled;
+    }
+    /**
+     * Gets the seed of the session's random number generator.
+     *
+     * @return the seed
+     */
+    public long getSeed() {
+        return seed;
+    }
+    /**
+     * Gets the number of entries, the frames where a recorded key was pressed or released.
+     *
+     * @return the number of entries
+     */
+    public int getCount() {
+        return count;
+    }
+    /**
+     * Gets the gameplay frame of an entry.
+     *
+     * @param i the index of the entry
+     * @return the frame, counted from 0
+     */
+    public int getFrame(int i) {
+        return frames[i];
+    }
+    /**
+     * Gets the pressed and released keys of an entry.
+     *
+     * @param i the index of the entry
+     * @return the mask of the keys
+     */
+    public int getMask(int i) {
+        return masks[i];
+    }
+    /**
+     * Gets when a key was pressed in an entry, relative to the time of its frame.
+     *
+     * @param i the index of the entry
+     * @param key the key
+     * @return the offset of the press, in microseconds, or 0 if the key is not pressed in the entry
+     */
+    public int getPressOffset(int i, Keys key) {
+        int bit = indexOf(key);
+        return bit < 0 ? 0 : offsetOf(i, bit);
+    }
+    /**
+     * Gets when a key was released in an entry, relative to the time of its frame.
+     *
+     * @param i the index of the entry
+     * @param key the key
+     * @return the offset of the release, in microseconds, or 0 if the key is not released in the entry
+     */
+    public int getReleaseOffset(int i, Keys key) {
+        int bit = indexOf(key);
+        return bit < 0 ? 0 : offsetOf(i, KEYS.length + bit);
+    }
+
+    private int offsetOf(int i, int bit) {
+        int mask = masks[i];
+        if ((mask & (1 << bit)) == 0) {
+            return 0;
+        }
+        // the offsets of an entry are stored in the order of its mask bits
+        return offsets[offsetStarts[i] + Integer.bitCount(mask & ((1 << bit) - 1))];
+    }
+    /**
+     * Gets the number of gameplay frames recorded.
+     *
+     * @return the number of frames
+     */
+    public int getLength() {
+        return length;
+    }
+}
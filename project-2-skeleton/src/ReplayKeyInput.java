@@ -0,0 +1,70 @@
+import bagel.*;
+
+/**
+ * The ReplayKeyInput class plays back the keys recorded in a Replay, one gameplay frame at a time,
+ * with the offsets of their events.
+ *
+ * Attributes:
+ * - replay: The replay being played back.
+ * - cursor: The index of the next entry to play back.
+ * - frame: The gameplay frame being played, counted from 0.
+ * - entry: The index of the entry of the current frame, or -1 if the frame has no entry.
+ * - mask: The pressed and released keys of the current frame.
+ */
+public class ReplayKeyInput implements KeyInput {
+    private final Replay replay;
+    private int cursor = 0;
+    private int frame = -1;
+    private int entry = -1;
+    private int mask = 0;
+    /**
+     * Constructs a ReplayKeyInput at the start of a replay.
+     *
+     * @param replay the replay to play back
+     */
+    public ReplayKeyInput(Replay replay) {
+        this.replay = replay;
+    }
+    /**
+     * Advances to the next gameplay frame.
+     * Frames after the end of the replay have no keys pressed or released.
+     */
+    public void next() {
+        frame++;
+        entry = -1;
+        mask = 0;
+        if (cursor < replay.getCount() && replay.getFrame(cursor) == frame) {
+            entry = cursor;
+            mask = replay.getMask(cursor);
+            cursor++;
+        }
+    }
+    /**
+     * Checks if the replay has been played to its last recorded frame.
+     *
+     * @return true if the replay is over, false otherwise
+     */
+    public boolean isOver() {
+        return frame >= replay.getLength() - 1;
+    }
+
+    @Override
+    public boolean wasPressed(Keys key) {
+        return Replay.isPressed(mask, key);
+    }
+
+    @Override
+    public boolean wasReleased(Keys key) {
+        return Replay.isReleased(mask, key);
+    }
+
+    @Override
+    public int getPressOffset(Keys key) {
+        return entry < 0 ? 0 : replay.getPressOffset(entry, key);
+    }
+
+    @Override
+    public int getReleaseOffset(Keys key) {
+        return entry < 0 ? 0 : replay.getReleaseOffset(entry, key);
+    }
+}
@@ -0,0 +1,61 @@
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The ReplayPlayer class re-scores recorded plays headlessly, as fast as possible.
+ * Each replay is played back through a GameplayController with the chart and seed it was
+ * recorded with, so its score is the score of the original play. Charts are loaded once
+ * and shared by all the replays of the same level.
+ *
+ * Usage: ReplayPlayer replay...
+ * - replay: The replay files to play back.
+ */
+public class ReplayPlayer {
+    private ReplayPlayer() {
+    }
+    /**
+     * Plays a replay back to the end of the level.
+     * If the replay ends before the level does, the rest of the level is played without input,
+     * unless it ended paused.
+     *
+     * @param chart the chart the replay was recorded on
+     * @param replay the replay to play back
+     * @return the final score
+     */
+    public static int play(Chart chart, Replay replay) {
+        GameSession session = new GameSession(chart, replay.isEnemiesEnabled(), replay.getSeed());
+        GameplayController controller = new GameplayController(session, null);
+        ReplayKeyInput input = new ReplayKeyInput(replay);
+        while (!controller.isFinished() && !(controller.isPaused() && input.isOver())) {
+            input.next();
+            controller.update(input);
+        }
+        int score = session.getScore();
+        session.dispose();
+        return score;
+    }
+    /**
+     * The entry point for replay playback.
+     *
+     * @param args command-line arguments
+     */
+    public static void main(String[] args) throws Exception {
+        if (args.length < 1) {
+            System.err.println("Usage: ReplayPlayer replay...");
+            System.exit(-1);
+        }
+        Map<String, Chart> charts = new HashMap<>();
+        long start = System.nanoTime();
+        for (String replayPath : args) {
+            Replay replay = Replay.read(replayPath);
+            Chart chart = charts.get(replay.getChartPath());
+            if (chart == null) {
+                chart = Chart.load(replay.getChartPath());
+                charts.put(replay.getChartPath(), chart);
+            }
+            System.out.printf("%s: score %d%n", replayPath, play(chart, replay));
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("%d replays in %.3f s (%.1f replays/s)%n", args.length, seconds, args.length / seconds);
+    }
+}
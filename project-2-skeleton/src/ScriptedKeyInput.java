@@ -0,0 +1,113 @@
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+
+import bagel.*;
+
+/**
+ * The ScriptedKeyInput class plays back a scripted stream of key events.
+ * It is used to drive the game simulation headlessly, without a window.
+ *
+ * Attributes:
+ * - events: The key events, ordered by frame.
+ * - cursor: The index of the next event to play back.
+ * - pressed, released: The keys pressed and released during the current frame.
+ */
+public class ScriptedKeyInput implements KeyInput {
+    private final List<KeyEvent> events;
+    private int cursor = 0;
+    private final EnumSet<Keys> pressed = EnumSet.noneOf(Keys.class);
+    private final EnumSet<Keys> released = EnumSet.noneOf(Keys.class);
+    /**
+     * Constructs an empty ScriptedKeyInput.
+     */
+    public ScriptedKeyInput() {
+        this(new ArrayList<>());
+    }
+
+    private ScriptedKeyInput(List<KeyEvent> events) {
+        this.events = events;
+    }
+    /**
+     * Creates a copy of the script that plays back independently of this one.
+     * The copy shares the events, so no more events may be added to either.
+     *
+     * @return the copy, rewound to the start
+     */
+    public ScriptedKeyInput copy() {
+        return new ScriptedKeyInput(events);
+    }
+    /**
+     * Reads a key script from a file.
+     * Each line has the form "frame,key,Pressed" or "frame,key,Released",
+     * where key is the name of a bagel Keys constant.
+     *
+     * @param scriptFilePath the path to the script file
+     * @return the ScriptedKeyInput for the script
+     * @throws IOException if the file cannot be read
+     */
+    public static ScriptedKeyInput readScript(String scriptFilePath) throws IOException {
+        ScriptedKeyInput script = new ScriptedKeyInput();
+        try (BufferedReader br = new BufferedReader(new FileReader(scriptFilePath))) {
+            String textRead;
+            while ((textRead = br.readLine()) != null) {
+                if (textRead.isEmpty()) {
+                    continue;
+                }
+                String[] splitText = textRead.split(",");
+                script.addEvent(new KeyEvent(Integer.parseInt(splitText[0]),
+                        Keys.valueOf(splitText[1]), splitText[2].equals("Pressed")));
+            }
+        }
+        return script;
+    }
+    /**
+     * Adds a key event to the script.
+     * Events must be added in frame order.
+     *
+     * @param event the key event to add
+     */
+    public void addEvent(KeyEvent event) {
+        events.add(event);
+    }
+    /**
+     * Advances the script to a given frame.
+     * The keys pressed and released are those of the events up to and including the frame.
+     *
+     * @param frame the frame to advance to
+     */
+    public void advanceTo(int frame) {
+        pressed.clear();
+        released.clear();
+        while (cursor < events.size() && events.get(cursor).getFrame() <= frame) {
+            KeyEvent event = events.get(cursor);
+            if (event.isPressed()) {
+                pressed.add(event.getKey());
+            } else {
+                released.add(event.getKey());
+            }
+            cursor++;
+        }
+    }
+    /**
+     * Rewinds the script to its start so it can be played again.
+     */
+    public void rewind() {
+        cursor = 0;
+        pressed.clear();
+        released.clear();
+    }
+
+    @Override
+    public boolean wasPressed(Keys key) {
+        return pressed.contains(key);
+    }
+
+    @Override
+    public boolean wasReleased(Keys key) {
+        return released.contains(key);
+    }
+}
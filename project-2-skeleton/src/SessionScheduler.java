@@ -0,0 +1,102 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * The SessionScheduler class plays many headless GameSessions at once on a pool of threads.
+ * Each session runs to completion on one thread from its own key script, and sessions share
+ * nothing but their read-only chart, so plays of the same chart are independent of each
+ * other and of how they are scheduled. Plays with the same script and seed give the same score.
+ * Callers can pass in their own ExecutorService, for example a virtual-thread executor
+ * on Java 21 and later.
+ *
+ * Attributes:
+ * - executor: The executor the sessions run on.
+ */
+public class SessionScheduler implements AutoCloseable {
+    private final ExecutorService executor;
+    /**
+     * Constructs a SessionScheduler with a fixed pool of a given number of threads.
+     *
+     * @param threads the number of threads
+     */
+    public SessionScheduler(int threads) {
+        this(Executors.newFixedThreadPool(threads));
+    }
+    /**
+     * Constructs a SessionScheduler that runs sessions on a given executor.
+     * The scheduler shuts the executor down when it is closed.
+     *
+     * @param executor the executor to run sessions on
+     */
+    public SessionScheduler(ExecutorService executor) {
+        this.executor = executor;
+    }
+    /**
+     * Plays a chart to the end with a given key script.
+     *
+     * @param chart the chart to play
+     * @param script the key script to replay; it is not shared with other sessions
+     * @param enemiesEnabled true if enemies and the guardian take part, false otherwise
+     * @param seed the seed of the session's random number generator
+     * @return the final score
+     */
+    public static int play(Chart chart, ScriptedKeyInput script, boolean enemiesEnabled, long seed) {
+        GameSession session = new GameSession(chart, enemiesEnabled, seed);
+        script.rewind();
+        while (!session.isFinished()) {
+            script.advanceTo(session.getCurrFrame() + 1);
+            session.update(script);
+        }
+        int score = session.getScore();
+        session.dispose();
+        return score;
+    }
+    /**
+     * Schedules a play of a chart.
+     *
+     * @param chart the chart to play
+     * @param script the key script to replay; a copy is used, so one script can be shared
+     * @param enemiesEnabled true if enemies and the guardian take part, false otherwise
+     * @param seed the seed of the session's random number generator
+     * @return the final score, once the play has finished
+     */
+    public Future<Integer> submit(Chart chart, ScriptedKeyInput script, boolean enemiesEnabled, long seed) {
+        ScriptedKeyInput copy = script.copy();
+        return executor.submit(() -> play(chart, copy, enemiesEnabled, seed));
+    }
+    /**
+     * Plays a chart a number of times in parallel and waits for all the plays to finish.
+     *
+     * @param chart the chart to play
+     * @param script the key script to replay in every play
+     * @param enemiesEnabled true if enemies and the guardian take part, false otherwise
+     * @param plays the number of plays
+     * @param seed the seed of every play's random number generator
+     * @return the final score of each play
+     * @throws InterruptedException if interrupted while waiting
+     * @throws ExecutionException if a play failed
+     */
+    public List<Integer> playAll(Chart chart, ScriptedKeyInput script, boolean enemiesEnabled, int plays,
+                                 long seed) throws InterruptedException, ExecutionException {
+        List<Future<Integer>> futures = new ArrayList<>();
+        for (int i = 0; i < plays; i++) {
+            futures.add(submit(chart, script, enemiesEnabled, seed));
+        }
+        List<Integer> scores = new ArrayList<>();
+        for (Future<Integer> future : futures) {
+            scores.add(future.get());
+        }
+        return scores;
+    }
+    /**
+     * Shuts down the executor, letting scheduled sessions finish.
+     */
+    @Override
+    public void close() {
+        executor.shutdown();
+    }
+}
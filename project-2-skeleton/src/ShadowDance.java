@@ -1,8 +1,3 @@
-import java.io.BufferedReader;
-import java.io.FileReader;
-import java.util.ArrayList;
-import java.util.Iterator;
-
 import bagel.*;
 /**
  * Skeleton Code for SWEN20003 Project 2, Semester 2, 2023
@@ -15,8 +10,14 @@ import bagel.*;
  */
 /**
  * The ShadowDance class represents the main game.
- * It manages the game state, including the lanes, notes, enemies, and the guardian.
- * It also handles user input and updates the game state accordingly.
+ * It handles the level select and end screens, and renders the GameSession of the level being played.
+ * The gameplay itself is simulated by the GameSession, which does not depend on the window,
+ * and run by a GameplayController, which records each play so it can be replayed by ReplayPlayer.
+ * The simulation runs at a fixed tick rate whatever the display's refresh rate: each rendered
+ * frame runs as many ticks as real time calls for, and draws moving sprites between ticks.
+ * The sprites of the game are packed into one TextureAtlas at startup.
+ * Real time here is the SongClock of the level's music, so the notes stay in time with the song.
+ * Key events are stamped with their time on that clock as they arrive, and notes are judged by them.
  * 
  * Attributes:
  * - WINDOW_WIDTH, WINDOW_HEIGHT: The width and height of the game window.
@@ -25,40 +26,62 @@ import bagel.*;
  * - currentLevelCsv: The CSV file path of the current level.
  * - CSV_FILE_1, CSV_FILE_2, CSV_FILE_3: The CSV file paths of the levels.
  * - FONT_FILE: The font file path.
+ * - REPLAY_FILE: The file the replay of the last finished play is saved to.
+ * - MUSIC_FILE: The song played during a level.
+ * - SILENT_SAMPLE_RATE: The sample rate of the silent device used when no audio device can be opened.
+ * - PROFILE_PROPERTY: The system property that turns on frame timing and the frame-time log line.
+ * - PROFILE_REPORT_FRAMES: The number of frames between frame-time log lines.
  * - TITLE_X, TITLE_Y, INS_X_OFFSET, INS_Y_OFFSET, LEVEL_SPACING, SCORE_LOCATION: Constants for positioning elements on the screen.
- * - TITLE_FONT, INSTRUCTION_FONT, SCORE_FONT: The fonts used in the game.
+ * - TITLE_FONT, INSTRUCTION_FONT, SCORE_FONT: The fonts used in the game, which keep the widths
+ *   of the strings they have measured.
+ * - SCORE_LABEL: The label drawn before the score; the score itself is drawn a digit at a time.
  * - LEVEL_SELECT, LEVEL_NUMBER, CLEAR_MESSAGE, TRY_AGAIN_MESSAGE, INSTRUCTION_END_SCREEN: Strings used in the game.
  * - CLEAR_SCORE_1, CLEAR_SCORE_2, CLEAR_SCORE_3: The scores needed to clear each level.
  * - WIN_LOSS_MESSAGE_Y, INSTRUCTION_END_Y: The y-coordinates for positioning elements on the screen.
- * - accuracy: The Accuracy object for the game.
- * - lanes, specialLanes: The lanes in the game.
- * - enemies: The enemies in the game.
- * - guardian: The Guardian object for the game.
- * - ENEMY_CREATION_FRAME: The frame when a new enemy is created.
- * - score: The current score.
- * - scoreMultiplier: The current score multiplier.
- * - currFrame: The current frame.
- * - started, finished, paused: Booleans indicating the game state.
+ * - keyInput: The KeyInput adapter for the live bagel Input.
+ * - latchedInput: The key events waiting for the next simulation tick.
+ * - keyStamps: The times of key events, stamped by a GlfwKeyStamper as they arrive.
+ * - stampListener: Moves the drained key stamps onto the song clock and into latchedInput.
+ * - keyStamper: The GlfwKeyStamper feeding keyStamps, or null before the first frame.
+ * - stamping: A boolean indicating whether the stamper is installed; without it, key events
+ *   are judged at the time of the tick that reads them.
+ * - timestep: The FixedTimestep that decides how many ticks each rendered frame runs; it catches
+ *   up after a stall, so the simulation stays with the song.
+ * - audio: The AudioDevice playing the song of the level being played.
+ * - songClock: The SongClock, locked to the song, that drives the timestep.
+ * - session: The GameSession of the level being played.
+ * - gameplay: The GameplayController running the session.
+ * - profiling: A boolean indicating whether PROFILE_PROPERTY is set.
+ * - liveProfiler: The FrameProfiler that times frames while profiling is on.
+ * - profiler: The FrameProfiler in use: liveProfiler while PROFILE_PROPERTY is set or the overlay
+ *   is shown, FrameProfiler.DISABLED otherwise; F1 toggles the overlay.
+ * - started, finished, showProfile: Booleans indicating the game state.
  */
 public class ShadowDance extends AbstractGame  {
     private final static int WINDOW_WIDTH = 1024;
     private final static int WINDOW_HEIGHT = 768;
     private final static String GAME_TITLE = "SHADOW DANCE";
-    private final Image BACKGROUND_IMAGE = new Image("res/background.png");
+    private final Texture BACKGROUND_IMAGE = TextureCache.acquire("res/background.png");
     private String currentLevelCsv;
     private final static String CSV_FILE_1 = "res/test1.csv";
     private final static String CSV_FILE_2 = "res/test2.csv";
     private final static String CSV_FILE_3 = "res/test3.csv";
     public final static String FONT_FILE = "res/FSO8BITR.TTF";
+    private final static String REPLAY_FILE = "last.replay";
+    private final static String MUSIC_FILE = "res/track1.wav";
+    private final static int SILENT_SAMPLE_RATE = 44100;
+    private final static String PROFILE_PROPERTY = "shadowdance.profile";
+    private final static int PROFILE_REPORT_FRAMES = 600;
     private final static int TITLE_X = 220;
     private final static int TITLE_Y = 250;
     private final static int INS_X_OFFSET = 100;
     private final static int INS_Y_OFFSET = 190;
     private final static int LEVEL_SPACING = 70;
     private final static int SCORE_LOCATION = 35;
-    private final Font TITLE_FONT = new Font(FONT_FILE, 64);
-    private final Font INSTRUCTION_FONT = new Font(FONT_FILE, 24);
-    private final Font SCORE_FONT = new Font(FONT_FILE, 30);
+    private final CachedFont TITLE_FONT = new CachedFont(FONT_FILE, 64);
+    private final CachedFont INSTRUCTION_FONT = new CachedFont(FONT_FILE, 24);
+    private final CachedFont SCORE_FONT = new CachedFont(FONT_FILE, 30);
+    private static final String SCORE_LABEL = "Score ";
     private static final String LEVEL_SELECT = "SELECT LEVELS WITH\nNUMBER KEYS";
     private static final String LEVEL_NUMBER = "     1     2     3     ";
     private static final int CLEAR_SCORE_1 = 150;
@@ -69,23 +92,40 @@ public class ShadowDance extends AbstractGame  {
     private static final String INSTRUCTION_END_SCREEN = "PRESS SPACE TO RETURN TO LEVEL SELECTION";
     private static final int WIN_LOSS_MESSAGE_Y = 300;
     private static final int INSTRUCTION_END_Y = 500;
-    private final Accuracy accuracy = new Accuracy();
-    private final ArrayList<Lane> lanes = new ArrayList<>();
-    private final ArrayList<Lane> specialLanes = new ArrayList<>();
-    private ArrayList<Enemy> enemies = new ArrayList<>();
-    private Guardian guardian = new Guardian();
-    private static final int ENEMY_CREATION_FRAME = 600;
-    private int score = 0;
-    private static double scoreMultiplier = 1.0;
-    private static int currFrame = 0;
+    private final BagelKeyInput keyInput = new BagelKeyInput();
+    private final LatchedKeyInput latchedInput = new LatchedKeyInput();
+    private final KeyStampQueue keyStamps = new KeyStampQueue();
+    private final KeyStampQueue.Listener stampListener = this::stampKey;
+    private GlfwKeyStamper keyStamper;
+    private boolean stamping = false;
+    private final FixedTimestep timestep = new FixedTimestep(true);
+    private AudioDevice audio;
+    private SongClock songClock;
+    private GameSession session;
+    private GameplayController gameplay;
+    private final boolean profiling = Boolean.getBoolean(PROFILE_PROPERTY);
+    private final FrameProfiler liveProfiler = new FrameProfiler(profiling ? PROFILE_REPORT_FRAMES : 0);
+    private FrameProfiler profiler = profiling ? liveProfiler : FrameProfiler.DISABLED;
     private boolean started = false;
     private boolean finished = false;
-    private boolean paused = false;
+    private boolean showProfile = false;
     /**
      * Constructs a ShadowDance game with a window of a given width and height and a given title.
      */
     public ShadowDance(){
         super(WINDOW_WIDTH, WINDOW_HEIGHT, GAME_TITLE);
+        packSprites();
+    }
+    /**
+     * Packs the game's sprites into one TextureAtlas, so each frame draws from a single texture.
+     * If the atlas cannot be made, every sprite is drawn from its own image instead.
+     */
+    private static void packSprites() {
+        try {
+            TextureCache.setAtlas(TextureAtlas.pack(TextureAtlas.SPRITES));
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
     }
     /**
      * The entry point for the program.
@@ -97,113 +137,55 @@ public class ShadowDance extends AbstractGame  {
         game.run();
     }
 
+    /**
+     * Starts a new GameSession for a given CSV file path.
+     *
+     * @param csvFilePath the path to the CSV file
+     */
     private void initializeGame(String csvFilePath) {
-        // Read the CSV
-        readCsv(csvFilePath);
+        boolean enemiesEnabled = csvFilePath.equals(CSV_FILE_3);
+        session = new GameSession(csvFilePath, enemiesEnabled);
+        session.setProfiler(profiler);
+        gameplay = new GameplayController(session, new Replay(csvFilePath, enemiesEnabled, session.getSeed()));
 
+        latchedInput.clear();
+        // forget the keys pressed before the level started
+        keyStamps.drain((keyIndex, pressed, nanos) -> { });
+        timestep.reset();
+        audio = openAudio();
+        songClock = new SongClock(audio, System::nanoTime);
+        audio.play();
         started = true;
         finished = false;
-        paused = false;
     }
     /**
-     * Initializes the game with a given CSV file path.
+     * Opens the song on the default audio device.
+     * If there is no audio device, or the song cannot be read, the level is played in silence.
      *
-     * @param csvFilePath the path to the CSV file
+     * @return the device playing the song
      */
-    private void readCsv(String csvFilePath) {
-        try (BufferedReader br = new BufferedReader(new FileReader(csvFilePath))) {
-            String textRead;
-            while ((textRead = br.readLine()) != null) {
-                String[] splitText = textRead.split(",");
-
-                if (splitText[0].equals("Lane")) {
-                    // reading lanes
-                    String laneType = splitText[1];
-                    int pos = Integer.parseInt(splitText[2]);
-                    Lane lane = new Lane(laneType, pos);
-
-                    if (laneType.equals("Special")) {
-                        specialLanes.add(lane);
-                    } else {
-                        lanes.add(lane);
-                    }
-                } else {
-                    // reading notes
-                    String dir = splitText[0];
-                    Lane lane = null;
-                    // Use enhanced for loop to iterate over ArrayList
-                    for (Lane l : lanes) {
-                        if (l.getType().equals(dir)) {
-                            lane = l;
-                        }
-                    }
-
-                    for (Lane l : specialLanes) {
-                        if (l.getType().equals(dir)) {
-                            lane = l;
-                        }
-                    }
-
-                    if (lane != null) {
-                        switch (splitText[1]) {
-                            case "Normal":
-                                Note note = new Note(dir, Integer.parseInt(splitText[2]));
-                                lane.addNote(note);
-                                break;
-                            case "Hold":
-                                HoldNote holdNote = new HoldNote(dir, Integer.parseInt(splitText[2]));
-                                lane.addHoldNote(holdNote);
-                                break;
-                            case "SpeedUp":
-                                SpeedUpNote speedUpNote = new SpeedUpNote("SpeedUp", Integer.parseInt(splitText[2]));
-                                lane.addSpeedUpNote(speedUpNote);
-                                break;
-                            case "SlowDown":
-                                SlowDownNote slowDownNote = new SlowDownNote("SlowDown", Integer.parseInt(splitText[2]));
-                                lane.addSlowDownNote(slowDownNote);
-                                break;
-                            case "DoubleScore":
-                                DoubleScoreNote doubleScoreNote = new DoubleScoreNote("2x", Integer.parseInt(splitText[2]));
-                                lane.addDoubleScoreNote(doubleScoreNote);
-                                break;
-                            case "Bomb":
-                                BombNote bombNote = new BombNote("Bomb", Integer.parseInt(splitText[2]));
-                                lane.addBombNote(bombNote);
-                                break;
-                        }
-                    }
-
-                }
-
-            }
+    private AudioDevice openAudio() {
+        try {
+            return new OpenAlAudioDevice(MUSIC_FILE);
         } catch (Exception e) {
             e.printStackTrace();
-            System.exit(-1);
+            return new NullAudioDevice(SILENT_SAMPLE_RATE, -1, System::nanoTime);
         }
-
-    }
-    /**
-     * Sets the score multiplier to a given value.
-     *
-     * @param newMultiplier the new score multiplier
-     */
-    public static void setScoreMultiplier(double newMultiplier) {
-        scoreMultiplier = newMultiplier;
-    }
-    /**
-     * Gets the current score multiplier.
-     *
-     * @return the current score multiplier
-     */
-    public static double getScoreMultiplier() {
-        return scoreMultiplier;
     }
     /**
      * Performs a state update.
-     * Allows the game to exit when the escape key is pressed.
+     * Allows the game to exit when the escape key is pressed, and toggles the frame-time
+     * overlay when F1 is pressed.
      */
     @Override
     protected void update(Input input) {
+        if (input.wasPressed(Keys.F1)) {
+            toggleProfile();
+        }
+        long frameStart = profiler.start();
+        if (keyStamper == null) {
+            installKeyStamper();
+        }
 
         if (input.wasPressed(Keys.ESCAPE)){
             Window.close();
@@ -248,113 +230,104 @@ public class ShadowDance extends AbstractGame  {
                 targetScore = CLEAR_SCORE_3;
             }
 
-            if (score >= targetScore) {
-                TITLE_FONT.drawString(CLEAR_MESSAGE,
-                        WINDOW_WIDTH/2 - TITLE_FONT.getWidth(CLEAR_MESSAGE)/2,
-                        WIN_LOSS_MESSAGE_Y);
-                INSTRUCTION_FONT.drawString(INSTRUCTION_END_SCREEN,
-                        (WINDOW_WIDTH - INSTRUCTION_FONT.getWidth(INSTRUCTION_END_SCREEN)) / 2.0,
-                        INSTRUCTION_END_Y);
+            if (session.getScore() >= targetScore) {
+                TITLE_FONT.drawCentred(CLEAR_MESSAGE, WINDOW_WIDTH / 2.0, WIN_LOSS_MESSAGE_Y);
+                INSTRUCTION_FONT.drawCentred(INSTRUCTION_END_SCREEN, WINDOW_WIDTH / 2.0, INSTRUCTION_END_Y);
             } else {
-                TITLE_FONT.drawString(TRY_AGAIN_MESSAGE,
-                        WINDOW_WIDTH/2 - TITLE_FONT.getWidth(TRY_AGAIN_MESSAGE)/2,
-                        WIN_LOSS_MESSAGE_Y);
-                INSTRUCTION_FONT.drawString(INSTRUCTION_END_SCREEN,
-                        (WINDOW_WIDTH - INSTRUCTION_FONT.getWidth(INSTRUCTION_END_SCREEN)) / 2.0,
-                        INSTRUCTION_END_Y);
+                TITLE_FONT.drawCentred(TRY_AGAIN_MESSAGE, WINDOW_WIDTH / 2.0, WIN_LOSS_MESSAGE_Y);
+                INSTRUCTION_FONT.drawCentred(INSTRUCTION_END_SCREEN, WINDOW_WIDTH / 2.0, INSTRUCTION_END_Y);
             }
             if (input.wasPressed(Keys.SPACE)) {
                 // Reset the game to the starting screen
                 started = false;
                 finished = false;
-                score = 0;
-                currFrame = 0;
-                 // Clear the lanes and specialLanes ArrayLists
-                lanes.clear();
-                specialLanes.clear();
+                // Release the textures held by the finished session
+                session.dispose();
+                session = null;
+                gameplay = null;
+                audio.close();
+                audio = null;
+                songClock = null;
             }
         } else {
             // gameplay
 
-            SCORE_FONT.drawString("Score " + score, SCORE_LOCATION, SCORE_LOCATION);
-
-            if (paused) {
-                if (input.wasPressed(Keys.TAB)) {
-                    paused = false;
-                }
-                
-                for (Lane lane : lanes) {
-                    lane.draw();
-                }
-
-                for (Lane lane : specialLanes) {
-                    lane.draw();
-                }
-
-            } else {
-                currFrame++;
-                for (Lane lane : lanes) {
-                    score += lane.update(input, accuracy) * ShadowDance.getScoreMultiplier();
-                }
-
-                for (Lane lane : specialLanes) {
-                    score += lane.update(input, accuracy) * ShadowDance.getScoreMultiplier();
-                }
-
-                if (currentLevelCsv.equals(CSV_FILE_3)) {
-                    guardian.update(input, enemies);
-                    if (currFrame % ENEMY_CREATION_FRAME == 0) {
-                        Enemy enemy = new Enemy();
-                        enemies.add(enemy);
-                    }
+            SCORE_FONT.drawString(SCORE_LABEL, SCORE_LOCATION, SCORE_LOCATION);
+            SCORE_FONT.drawNumber(session.getScore(), SCORE_LOCATION + SCORE_FONT.getWidth(SCORE_LABEL),
+                    SCORE_LOCATION);
 
-                    for (Enemy enemy : enemies) {
-                        enemy.update();
-                        for (Lane lane : lanes) {
-                            Iterator<Note> noteIterator = lane.getNotes().iterator();
-                            while (noteIterator.hasNext()) {
-                                Note note = noteIterator.next();
-                                if (note.isActive() && enemy.collidesWith(note)) {
-                                    noteIterator.remove();
-                                }
-                            }
-                        }
-                    }
-                }
-                enemies.removeIf(Enemy::isRemoved);
-                accuracy.update();
-                finished = checkFinished();
-                if (input.wasPressed(Keys.TAB)) {
-                    paused = true;
-                }
+            keyInput.setInput(input);
+            latchedInput.latch(keyInput);
+            audio.update();
+            int ticks = timestep.advance(songClock.now());
+            if (stamping) {
+                keyStamps.drain(stampListener);
+            }
+            for (int i = 0; i < ticks && !finished; i++) {
+                latchedInput.setTickTime(timestep.getTickTime(i, ticks));
+                gameplay.update(latchedInput);
+                latchedInput.clear();
+                finished = gameplay.isFinished();
+            }
+            if (gameplay.isPaused() && !songClock.isPaused()) {
+                songClock.pause();
+            } else if (!gameplay.isPaused() && songClock.isPaused()) {
+                songClock.resume();
             }
+            if (finished) {
+                saveReplay();
+            }
+            session.draw(gameplay.isPaused() ? 0 : timestep.getAlpha());
         }
 
+        if (showProfile) {
+            profiler.drawOverlay();
+        }
+        profiler.stop(FrameProfiler.Section.FRAME, frameStart);
+        profiler.endFrame();
     }
     /**
-     * Gets the current frame.
-     *
-     * @return the current frame
+     * Shows or hides the frame-time overlay, timing frames only while it is shown,
+     * unless PROFILE_PROPERTY asked for timing all along.
      */
-    public static int getCurrFrame() {
-        return currFrame;
+    private void toggleProfile() {
+        showProfile = !showProfile;
+        profiler = showProfile || profiling ? liveProfiler : FrameProfiler.DISABLED;
+        if (session != null) {
+            session.setProfiler(profiler);
+        }
     }
     /**
-     * Checks if all the lanes are finished.
-     *
-     * @return true if all the lanes are finished, false otherwise
+     * Installs the GlfwKeyStamper, on the first frame, when the window exists and bagel's own
+     * key callback is already set, so the stamper is chained in front of it and not replaced.
+     * If there is no window to install it on, key events are judged at the tick that reads them.
      */
-    private boolean checkFinished() {
-        for (Lane lane : lanes) {
-            if (!lane.isFinished()) {
-                return false;
-            }
+    private void installKeyStamper() {
+        keyStamper = new GlfwKeyStamper(keyStamps);
+        stamping = keyStamper.install();
+        if (!stamping) {
+            System.err.println("No GLFW window to stamp key events; judging them at the tick that reads them");
         }
-        for (Lane lane : specialLanes) {
-            if (!lane.isFinished()) {
-                return false;
-            }
+    }
+    /**
+     * Stamps a key event drained from the queue with its time on the song clock.
+     *
+     * @param keyIndex the index of the key in Replay's keys
+     * @param pressed true for a press, false for a release
+     * @param nanos the time of the event, from System.nanoTime
+     */
+    private void stampKey(int keyIndex, boolean pressed, long nanos) {
+        latchedInput.stamp(keyIndex, pressed, songClock.toSongTime(nanos));
+    }
+    /**
+     * Saves the replay of the play that has just finished.
+     * A replay that cannot be saved is reported but does not stop the game.
+     */
+    private void saveReplay() {
+        try {
+            gameplay.getRecording().write(REPLAY_FILE);
+        } catch (Exception e) {
+            e.printStackTrace();
         }
-        return true;
     }
 }
@@ -0,0 +1,100 @@
+import java.util.function.LongSupplier;
+
+/**
+ * The SongClock class is the clock gameplay runs on, locked to the playback of the song.
+ * Reading the audio position directly would make a jerky clock, since audio devices report
+ * it in steps of their mixing period, so the clock runs on the system timer and is steered
+ * towards the audio position while the song plays: small drift is corrected a little on each
+ * reading, and a large jump, such as after a stall, is snapped to at once. The clock never
+ * runs backwards. While gameplay is paused, the song is paused but the clock keeps running,
+ * and the time spent paused is added to the song position from then on.
+ * Once the song has ended the clock simply follows the system timer.
+ *
+ * Attributes:
+ * - SNAP_NANOS: The drift beyond which the clock jumps straight to the audio position.
+ * - CORRECTION: The fraction of a smaller drift corrected on each reading.
+ * - audio: The device playing the song.
+ * - nanoTime: The system timer, in nanoseconds.
+ * - offset: The difference between the clock and the system timer.
+ * - pausedNanos: The total time the song has been paused for.
+ * - pauseStart: The clock time the current pause started, or -1 if not paused.
+ * - last: The last time the clock read.
+ */
+public class SongClock {
+    private static final long SNAP_NANOS = 50_000_000L;
+    private static final double CORRECTION = 0.1;
+    private final AudioDevice audio;
+    private final LongSupplier nanoTime;
+    private long offset;
+    private long pausedNanos = 0;
+    private long pauseStart = -1;
+    private long last = 0;
+    /**
+     * Constructs a SongClock that reads 0 now, for a song that is about to start.
+     *
+     * @param audio the device playing the song
+     * @param nanoTime the system timer, such as System::nanoTime
+     */
+    public SongClock(AudioDevice audio, LongSupplier nanoTime) {
+        this.audio = audio;
+        this.nanoTime = nanoTime;
+        offset = -nanoTime.getAsLong();
+    }
+    /**
+     * Reads the clock, steering it towards the audio position if the song is playing.
+     *
+     * @return the time since the song started, in nanoseconds
+     */
+    public long now() {
+        long wall = nanoTime.getAsLong();
+        if (pauseStart < 0 && audio.isPlaying()) {
+            long songTime = audio.getSamplePosition() * 1_000_000_000L / audio.getSampleRate() + pausedNanos;
+            long drift = songTime - (wall + offset);
+            if (Math.abs(drift) > SNAP_NANOS) {
+                offset += drift;
+            } else {
+                offset += (long) (drift * CORRECTION);
+            }
+        }
+        long time = Math.max(wall + offset, last);
+        last = time;
+        return time;
+    }
+    /**
+     * Converts a reading of the system timer to the clock, as it was steered at the last reading,
+     * such as the time a key event was stamped with.
+     *
+     * @param wallNanos a reading of the system timer, in nanoseconds
+     * @return the time since the song started, in nanoseconds
+     */
+    public long toSongTime(long wallNanos) {
+        return wallNanos + offset;
+    }
+    /**
+     * Pauses the song. The clock keeps running.
+     */
+    public void pause() {
+        if (pauseStart < 0) {
+            pauseStart = now();
+            audio.pause();
+        }
+    }
+    /**
+     * Resumes the song after a pause.
+     */
+    public void resume() {
+        if (pauseStart >= 0) {
+            pausedNanos += now() - pauseStart;
+            pauseStart = -1;
+            audio.play();
+        }
+    }
+    /**
+     * Checks if the song is paused.
+     *
+     * @return true if paused, false otherwise
+     */
+    public boolean isPaused() {
+        return pauseStart >= 0;
+    }
+}
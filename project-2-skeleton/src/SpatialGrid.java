@@ -0,0 +1,153 @@
+import java.util.Arrays;
+
+/**
+ * The SpatialGrid class is a uniform grid broadphase for collision checks.
+ * Points are bucketed into square cells over the window. As long as the cell size is at
+ * least the collision distance, anything within that distance of a position is in the
+ * 3x3 block of cells around it, so a query only visits nearby points.
+ * The grid is rebuilt from scratch each frame with a counting sort into preallocated arrays,
+ * so building and querying do not allocate once the grid has grown to fit its points; it grows
+ * to the length of the coordinate arrays it is given, so it grows only when they do.
+ * Points outside the window are clamped into the edge cells.
+ *
+ * Attributes:
+ * - cellSize: The width and height of each cell.
+ * - columns, rows: The number of cells across and down the window.
+ * - cellStarts: The start of each cell's run of points in items; cell c holds items[cellStarts[c]] to items[cellStarts[c + 1] - 1].
+ * - columnCounts: The number of points in each column of cells.
+ * - items: The indices of the points, grouped by cell.
+ * - pointCells: The cell of each point, used while building.
+ */
+public class SpatialGrid {
+    private final double cellSize;
+    private final int columns;
+    private final int rows;
+    private final int[] cellStarts;
+    private final int[] columnCounts;
+    private int[] items = new int[16];
+    private int[] pointCells = new int[16];
+    /**
+     * Constructs a SpatialGrid covering a window of a given size.
+     *
+     * @param width the width of the window
+     * @param height the height of the window
+     * @param cellSize the width and height of each cell; at least the largest query distance
+     */
+    public SpatialGrid(double width, double height, double cellSize) {
+        this.cellSize = cellSize;
+        this.columns = (int) Math.ceil(width / cellSize);
+        this.rows = (int) Math.ceil(height / cellSize);
+        this.cellStarts = new int[columns * rows + 1];
+        this.columnCounts = new int[columns];
+    }
+    /**
+     * Rebuilds the grid from a set of points.
+     *
+     * @param xs the x-coordinate of each point
+     * @param ys the y-coordinate of each point
+     * @param count the number of points, at most the length of xs
+     */
+    public void build(double[] xs, double[] ys, int count) {
+        if (items.length < xs.length) {
+            items = new int[xs.length];
+            pointCells = new int[items.length];
+        }
+        Arrays.fill(cellStarts, 0);
+        Arrays.fill(columnCounts, 0);
+        for (int i = 0; i < count; i++) {
+            int column = cellX(xs[i]);
+            int cell = cellY(ys[i]) * columns + column;
+            pointCells[i] = cell;
+            cellStarts[cell + 1]++;
+            columnCounts[column]++;
+        }
+        for (int c = 0; c < columns * rows; c++) {
+            cellStarts[c + 1] += cellStarts[c];
+        }
+        // place each point at the end of its cell's run, then shift the run starts back
+        for (int i = 0; i < count; i++) {
+            items[cellStarts[pointCells[i]]++] = i;
+        }
+        for (int c = columns * rows; c > 0; c--) {
+            cellStarts[c] = cellStarts[c - 1];
+        }
+        cellStarts[0] = 0;
+    }
+    /**
+     * Gets the column of cells an x-coordinate falls in.
+     *
+     * @param x the x-coordinate
+     * @return the column, clamped to the grid
+     */
+    public int cellX(double x) {
+        return Math.min(columns - 1, Math.max(0, (int) (x / cellSize)));
+    }
+    /**
+     * Gets the row of cells a y-coordinate falls in.
+     *
+     * @param y the y-coordinate
+     * @return the row, clamped to the grid
+     */
+    public int cellY(double y) {
+        return Math.min(rows - 1, Math.max(0, (int) (y / cellSize)));
+    }
+    /**
+     * Checks if there are no points in a column of cells or the columns either side of it.
+     *
+     * @param column the column of cells
+     * @return true if the three columns are empty, false otherwise
+     */
+    public boolean isBandEmpty(int column) {
+        for (int c = Math.max(0, column - 1); c <= Math.min(columns - 1, column + 1); c++) {
+            if (columnCounts[c] > 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+    /**
+     * Gets the number of columns of cells.
+     *
+     * @return the number of columns
+     */
+    public int getColumns() {
+        return columns;
+    }
+    /**
+     * Gets the number of rows of cells.
+     *
+     * @return the number of rows
+     */
+    public int getRows() {
+        return rows;
+    }
+    /**
+     * Gets the start of a cell's run of points.
+     *
+     * @param column the column of the cell
+     * @param row the row of the cell
+     * @return the index in the run of the cell's first point
+     */
+    public int cellStart(int column, int row) {
+        return cellStarts[row * columns + column];
+    }
+    /**
+     * Gets the end of a cell's run of points.
+     *
+     * @param column the column of the cell
+     * @param row the row of the cell
+     * @return the index in the run after the cell's last point
+     */
+    public int cellEnd(int column, int row) {
+        return cellStarts[row * columns + column + 1];
+    }
+    /**
+     * Gets the index of the point at a position in the runs.
+     *
+     * @param k the position in the runs, from cellStart to cellEnd
+     * @return the index of the point
+     */
+    public int itemAt(int k) {
+        return items[k];
+    }
+}
@@ -0,0 +1,135 @@
+/**
+ * The SpeedController class holds the speeds and timed effects of one GameSession.
+ * Notes, enemies and arrows read their speed from it, and speed up, slow down and double
+ * score notes change it, so effects never leak from one session into another.
+ *
+ * Attributes:
+ * - INITIAL_NOTE_SPEED, INITIAL_ENEMY_SPEED, INITIAL_ARROW_SPEED: The speeds a session starts at.
+ * - noteTimeline: The timeline of note speed changes that positions all notes.
+ * - enemySpeed: The speed new enemies move at.
+ * - arrowSpeed: The speed arrows move at.
+ * - scoreMultiplier: The current score multiplier.
+ * - multiplierFrames: The number of frames left before the score multiplier returns to 1.
+ * - currFrame: The current frame.
+ * - noteDistance: The distance notes have scrolled by the current frame.
+ */
+public class SpeedController {
+    static final int INITIAL_NOTE_SPEED = 2;
+    private static final int INITIAL_ENEMY_SPEED = 1;
+    private static final int INITIAL_ARROW_SPEED = 6;
+    private final SpeedTimeline noteTimeline = new SpeedTimeline(INITIAL_NOTE_SPEED);
+    private int enemySpeed = INITIAL_ENEMY_SPEED;
+    private int arrowSpeed = INITIAL_ARROW_SPEED;
+    private double scoreMultiplier = 1.0;
+    private int multiplierFrames = 0;
+    private int currFrame = 0;
+    private long noteDistance = 0;
+    /**
+     * Advances the controller to a new frame.
+     * Counts down the score multiplier effect and works out how far notes have scrolled.
+     *
+     * @param frame the new current frame
+     */
+    public void update(int frame) {
+        currFrame = frame;
+        if (multiplierFrames > 0) {
+            multiplierFrames--;
+            if (multiplierFrames == 0) {
+                // Reset score multiplier to normal when effect duration elapses
+                scoreMultiplier = 1;
+            }
+        }
+        noteDistance = noteTimeline.distanceAt(frame);
+    }
+    /**
+     * Increases the speed of notes, enemies and arrows by 1.
+     * Notes speed up from the next frame.
+     */
+    public void increaseSpeed() {
+        noteTimeline.setSpeed(currFrame + 1, noteTimeline.getSpeed() + 1);
+        enemySpeed++;
+        arrowSpeed++;
+    }
+    /**
+     * Decreases the speed of notes, enemies and arrows by 1, down to a minimum of 1.
+     * Notes slow down from the next frame.
+     */
+    public void decreaseSpeed() {
+        if (noteTimeline.getSpeed() > 1) {
+            noteTimeline.setSpeed(currFrame + 1, noteTimeline.getSpeed() - 1);
+        }
+        if (enemySpeed > 1) {
+            enemySpeed--;
+        }
+        if (arrowSpeed > 1) {
+            arrowSpeed--;
+        }
+    }
+    /**
+     * Sets the score multiplier to a given value for a number of frames.
+     *
+     * @param newMultiplier the new score multiplier
+     * @param frames the number of frames before the multiplier returns to 1
+     */
+    public void setScoreMultiplier(double newMultiplier, int frames) {
+        scoreMultiplier = newMultiplier;
+        multiplierFrames = frames;
+    }
+    /**
+     * Gets the current score multiplier.
+     *
+     * @return the current score multiplier
+     */
+    public double getScoreMultiplier() {
+        return scoreMultiplier;
+    }
+    /**
+     * Gets the current frame.
+     *
+     * @return the current frame
+     */
+    public int getCurrFrame() {
+        return currFrame;
+    }
+    /**
+     * Gets the distance notes have scrolled by the current frame.
+     *
+     * @return the distance scrolled since the start of the song
+     */
+    public long getNoteDistance() {
+        return noteDistance;
+    }
+    /**
+     * Gets how far notes scroll between a point part way to the next frame and the current frame.
+     *
+     * @param alpha how far through the next frame, from 0 to 1
+     * @return the distance, in pixels
+     */
+    public double getNoteDrawOffset(double alpha) {
+        return alpha * (noteTimeline.distanceAt(currFrame + 1) - noteDistance);
+    }
+    /**
+     * Gets the timeline of note speed changes.
+     *
+     * @return the note speed timeline
+     */
+    public SpeedTimeline getNoteTimeline() {
+        return noteTimeline;
+    }
+    /**
+     * Gets the speed new enemies move at.
+     *
+     * @return the enemy speed
+     */
+    public int getEnemySpeed() {
+        return enemySpeed;
+    }
+    /**
+     * Gets the speed arrows move at.
+     *
+     * @return the arrow speed
+     */
+    public int getArrowSpeed() {
+        return arrowSpeed;
+    }
+}
@@ -0,0 +1,114 @@
+import java.util.Arrays;
+
+/**
+ * The SpeedTimeline class records how fast notes scroll over the course of a song.
+ * Each speed change is an event that takes effect from a given frame, and the timeline
+ * keeps the distance scrolled up to each event, so the distance scrolled by any frame
+ * is a closed-form function of the frame. A note's position is then the distance scrolled
+ * since it appeared, and does not need to be stepped every frame.
+ * Between frames, the distance grows linearly, so the timeline can also be run backwards
+ * to find the exact, fractional frame a given distance is reached on.
+ * Frame 0 is the start of the song; notes move on every frame from frame 1.
+ *
+ * Attributes:
+ * - startFrames: The first frame each speed applies to, in increasing order.
+ * - speeds: The speed from each start frame, in pixels per frame.
+ * - baseDistances: The distance scrolled by the frame before each start frame.
+ * - eventCount: The number of speed events.
+ */
+public class SpeedTimeline {
+    private int[] startFrames = new int[4];
+    private int[] speeds = new int[4];
+    private long[] baseDistances = new long[4];
+    private int eventCount = 0;
+    /**
+     * Constructs a SpeedTimeline starting at a given speed.
+     *
+     * @param initialSpeed the speed from frame 1
+     */
+    public SpeedTimeline(int initialSpeed) {
+        restart(initialSpeed);
+    }
+    /**
+     * Clears all speed events and starts again from frame 0 at a given speed.
+     *
+     * @param initialSpeed the speed from frame 1
+     */
+    public void restart(int initialSpeed) {
+        eventCount = 1;
+        startFrames[0] = 1;
+        speeds[0] = initialSpeed;
+        baseDistances[0] = 0;
+    }
+    /**
+     * Changes the speed from a given frame onwards.
+     * Speed changes must be made in frame order.
+     *
+     * @param fromFrame the first frame the new speed applies to
+     * @param speed the new speed, in pixels per frame
+     */
+    public void setSpeed(int fromFrame, int speed) {
+        int last = eventCount - 1;
+        if (fromFrame <= startFrames[last]) {
+            // replace the last event rather than record a speed that never applies
+            speeds[last] = speed;
+            return;
+        }
+        if (eventCount == startFrames.length) {
+            startFrames = Arrays.copyOf(startFrames, eventCount * 2);
+            speeds = Arrays.copyOf(speeds, eventCount * 2);
+            baseDistances = Arrays.copyOf(baseDistances, eventCount * 2);
+        }
+        baseDistances[eventCount] = distanceAt(fromFrame - 1);
+        startFrames[eventCount] = fromFrame;
+        speeds[eventCount] = speed;
+        eventCount++;
+    }
+    /**
+     * Gets the latest speed.
+     *
+     * @return the speed of the last speed event
+     */
+    public int getSpeed() {
+        return speeds[eventCount - 1];
+    }
+    /**
+     * Gets the total distance scrolled by the end of a given frame.
+     * Frames at or after the last speed change are found in constant time,
+     * earlier frames by a binary search over the speed events.
+     *
+     * @param frame the frame
+     * @return the distance scrolled from the start of the song, in pixels
+     */
+    public long distanceAt(int frame) {
+        if (frame < startFrames[0]) {
+            return 0;
+        }
+        int event = eventCount - 1;
+        if (frame < startFrames[event]) {
+            event = Arrays.binarySearch(startFrames, 0, eventCount, frame);
+            if (event < 0) {
+                event = -event - 2;
+            }
+        }
+        return baseDistances[event] + (long) speeds[event] * (frame - startFrames[event] + 1);
+    }
+    /**
+     * Gets the frame, between whole frames, on which a given distance is scrolled.
+     * This is the inverse of distanceAt, with the distance growing linearly through each frame.
+     * Distances beyond the last speed change are reached at the latest speed.
+     *
+     * @param distance the distance scrolled from the start of the song, in pixels
+     * @return the fractional frame, or 0 for distances up to 0
+     */
+    public double frameAt(long distance) {
+        if (distance <= 0) {
+            return 0;
+        }
+        int event = Arrays.binarySearch(baseDistances, 0, eventCount, distance);
+        if (event < 0) {
+            event = -event - 2;
+        }
+        return startFrames[event] - 1 + (double) (distance - baseDistances[event]) / speeds[event];
+    }
+}
@@ -1,118 +1,62 @@
 import bagel.*;
 /**
- * The SpeedUpNote class represents a special type of Note in the game.
- * When activated, it moves down the screen at a certain speed.
- * It can be deactivated by pressing a key when it is within a certain distance from the target height.
- * When deactivated, it increases the speed of all notes.
+ * The SpeedUpNote class represents the behaviour of speed up notes.
+ * When activated, a speed up note moves down the screen at a certain speed.
+ * It can be deactivated by pressing a key within a certain time of it reaching the target height.
+ * When deactivated, it increases the speed of all notes, enemies and arrows.
  * 
  * Attributes:
- * - image: The image of the SpeedUpNote.
- * - appearanceFrame: The frame when the SpeedUpNote appears.
- * - speed: The speed of the SpeedUpNote.
- * - y: The y-coordinate of the SpeedUpNote.
- * - active: A boolean indicating whether the SpeedUpNote is active.
- * - completed: A boolean indicating whether the SpeedUpNote is completed.
- * - ACTIVATION_RADIUS: The radius within which the SpeedUpNote can be deactivated.
+ * - ACTIVATION_RADIUS: The distance from the target within which the SpeedUpNote can be deactivated at the initial note speed.
+ * - ACTIVATION_WINDOW: The same, as a time from the target in milliseconds.
+ * - speeds: The SpeedController of the session.
  */
 public class SpeedUpNote extends Note{
-    private final Image image = new Image("res/noteSpeedUp.png");
-    private final int appearanceFrame;
-    private static int speed = 2;
-    protected int y = 100;
-    private boolean active = false;
-    private boolean completed = false;
     private static final int ACTIVATION_RADIUS = 50;
+    private static final double ACTIVATION_WINDOW = Accuracy.toWindow(ACTIVATION_RADIUS);
+    private final SpeedController speeds;
     /**
-     * Constructs a SpeedUpNote with a given direction and appearance frame.
+     * Constructs the SpeedUpNote behaviour.
      *
-     * @param dir the direction of the SpeedUpNote
-     * @param appearanceFrame the frame when the SpeedUpNote appears
+     * @param speeds the SpeedController of the session
      */
-    public SpeedUpNote(String dir, int appearanceFrame) {
-        super(dir, appearanceFrame);
-        this.appearanceFrame = appearanceFrame;
+    public SpeedUpNote(SpeedController speeds) {
+        super(TextureCache.acquire("res/noteSpeedUp.png"));
+        this.speeds = speeds;
     }
     /**
-     * Checks if the SpeedUpNote is active.
+     * Gets the type of note this object is the behaviour of.
      *
-     * @return true if the SpeedUpNote is active, false otherwise
+     * @return the type of the note
      */
-    public boolean isActive() {
-        return active;
-    }
-    /**
-     * Checks if the SpeedUpNote is completed.
-     *
-     * @return true if the SpeedUpNote is completed, false otherwise
-     */
-    public boolean isCompleted() {
-        return completed;
-    }
-    /**
-     * Deactivates the SpeedUpNote and marks it as completed.
-     */
-    public void deactivate() {
-        active = false;
-        completed = true;
-    }
-    /**
-     * Updates the state of the SpeedUpNote.
-     * If the SpeedUpNote is active, it moves down the screen.
-     * If the current frame is greater than or equal to the appearance frame and the SpeedUpNote is not completed, it is activated.
-     */
-    public void update() {
-        if (active) {
-            y += speed;
-        }
-
-        if (ShadowDance.getCurrFrame() >= appearanceFrame && !completed) {
-            active = true;
-        }
-
-    }
-    /**
-     * Draws the SpeedUpNote on the screen at a given x-coordinate.
-     * The SpeedUpNote is only drawn if it is active.
-     *
-     * @param x the x-coordinate where the SpeedUpNote is drawn
-     */
-    public void draw(int x) {
-        if (active) {
-            image.draw(x, y);
-        }
+    @Override
+    public NoteType getType() {
+        return NoteType.SPEED_UP;
     }
     /**
-     * Checks the score for the SpeedUpNote.
-     * If the SpeedUpNote is active and within a certain distance from the target height when a key is pressed, it is deactivated, the speed of all notes is increased, and a score is returned.
-     * If the SpeedUpNote has passed the target height, it is deactivated and a miss score is returned.
+     * Checks the score for a SpeedUpNote.
+     * If the SpeedUpNote is active and pressed within a certain time of reaching the target height, it is deactivated, the speed of all notes is increased, and a score is returned.
+     * If the SpeedUpNote has passed the target height, it is deactivated without a score.
      *
-     * @param input the current input (keyboard and mouse state)
+     * @param notes the store holding the note
+     * @param i the index of the note
+     * @param keys the press and release of the lane's key on the current frame
      * @param accuracy the current accuracy
      * @param targetHeight the target height for the SpeedUpNote
-     * @param relevantKey the key that deactivates the SpeedUpNote
      * @return the score for the SpeedUpNote
      */
     @Override
-    public int checkScore(Input input, Accuracy accuracy, int targetHeight, Keys relevantKey) {
-        if (isActive()) {
-            
-            int distance = Math.abs(y - targetHeight);
+    public int checkScore(NoteStore notes, int i, KeyTiming keys, Accuracy accuracy, int targetHeight) {
+        if (notes.isActive(i)) {
+            int y = notes.getY(i);
 
-            if (distance <= ACTIVATION_RADIUS && input.wasPressed(relevantKey)) {
-                deactivate();
-                Note.increaseSpeed();
-                HoldNote.increaseSpeed();
-                SpeedUpNote.increaseSpeed();
-                SlowDownNote.increaseSpeed();
-                DoubleScoreNote.increaseSpeed();
-                BombNote.increaseSpeed();
-                Enemy.increaseSpeed();
-                Arrow.increaseSpeed();
+            if (keys.wasPressed() && Math.abs(keys.pressError(notes, i, targetHeight)) <= ACTIVATION_WINDOW) {
+                notes.deactivate(i);
+                speeds.increaseSpeed();
                 return 15;
             }
 
             if (y >= targetHeight) {
-                deactivate();
+                notes.deactivate(i);
                 return Accuracy.NOT_SCORED;
             }
         }
@@ -120,19 +64,15 @@ public class SpeedUpNote extends Note{
         return Accuracy.NOT_SCORED;
     }
     /**
-     * Increases the speed of the note by 1.
-     */
-    public static void increaseSpeed() {
-        speed++;
-    }
-    /**
-     * Decreases the speed of the note by 1.
+     * Gets the deadline of a SpeedUpNote: the distance scrolled at which it passes the target height.
+     *
+     * @param notes the store holding the note
+     * @param i the index of the note
+     * @param targetHeight the target height for the SpeedUpNote
+     * @return the deadline, as a distance scrolled from the start of the song
      */
-    public static void decreaseSpeed() {
-         // Ensure speed doesn't go below 1
-        if (speed > 1) {
-            speed--;
-        }
+    @Override
+    public long getDeadline(NoteStore notes, int i, int targetHeight) {
+        return notes.distanceAt(i, targetHeight);
     }
-
-}
\ No newline at end of file
+}
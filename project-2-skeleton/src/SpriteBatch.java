@@ -0,0 +1,98 @@
+import java.util.Arrays;
+
+/**
+ * The SpriteBatch class collects the sprites of a frame and submits them layer by layer.
+ * Entities add their sprites to the batch instead of drawing them, in any order; flush then
+ * hands each layer to a SpriteRenderer as one batch, back to front, so every sprite of a layer
+ * is drawn together. The sprites are kept in arrays that are reused from frame to frame, so
+ * filling and flushing the batch does not allocate once it has grown to the size of a frame.
+ *
+ * Attributes:
+ * - LAYERS: The layers, in drawing order.
+ * - INITIAL_CAPACITY: The number of sprites each layer has room for before it grows.
+ * - textures, xs, ys, rotations: The texture, position and rotation of each sprite, by layer.
+ * - counts: The number of sprites in each layer.
+ */
+public class SpriteBatch {
+    /**
+     * The layers of a frame, from back to front.
+     */
+    public enum Layer {
+        LANES, NOTES, ARROWS, GUARDIAN, ENEMIES
+    }
+    private static final Layer[] LAYERS = Layer.values();
+    private static final int INITIAL_CAPACITY = 64;
+    private final Texture[][] textures = new Texture[LAYERS.length][INITIAL_CAPACITY];
+    private final double[][] xs = new double[LAYERS.length][INITIAL_CAPACITY];
+    private final double[][] ys = new double[LAYERS.length][INITIAL_CAPACITY];
+    private final double[][] rotations = new double[LAYERS.length][INITIAL_CAPACITY];
+    private final int[] counts = new int[LAYERS.length];
+    /**
+     * Adds a sprite to a layer.
+     *
+     * @param layer the layer
+     * @param texture the texture of the sprite
+     * @param x the x-coordinate of the centre of the sprite
+     * @param y the y-coordinate of the centre of the sprite
+     */
+    public void add(Layer layer, Texture texture, double x, double y) {
+        add(layer, texture, x, y, 0);
+    }
+    /**
+     * Adds a rotated sprite to a layer.
+     *
+     * @param layer the layer
+     * @param texture the texture of the sprite
+     * @param x the x-coordinate of the centre of the sprite
+     * @param y the y-coordinate of the centre of the sprite
+     * @param rotation the rotation of the sprite, in radians
+     */
+    public void add(Layer layer, Texture texture, double x, double y, double rotation) {
+        int l = layer.ordinal();
+        int i = counts[l];
+        if (i == textures[l].length) {
+            textures[l] = Arrays.copyOf(textures[l], i * 2);
+            xs[l] = Arrays.copyOf(xs[l], i * 2);
+            ys[l] = Arrays.copyOf(ys[l], i * 2);
+            rotations[l] = Arrays.copyOf(rotations[l], i * 2);
+        }
+        textures[l][i] = texture;
+        xs[l][i] = x;
+        ys[l][i] = y;
+        rotations[l][i] = rotation;
+        counts[l] = i + 1;
+    }
+    /**
+     * Submits the sprites to a renderer, one batch per layer from back to front, and empties the batch.
+     * Layers without sprites are skipped.
+     *
+     * @param renderer the renderer to draw the sprites with
+     */
+    public void flush(SpriteRenderer renderer) {
+        for (int l = 0; l < LAYERS.length; l++) {
+            int count = counts[l];
+            if (count == 0) {
+                continue;
+            }
+            Texture[] layerTextures = textures[l];
+            double[] layerXs = xs[l];
+            double[] layerYs = ys[l];
+            double[] layerRotations = rotations[l];
+            renderer.beginLayer(LAYERS[l]);
+            for (int i = 0; i < count; i++) {
+                renderer.draw(layerTextures[i], layerXs[i], layerYs[i], layerRotations[i]);
+            }
+            renderer.endLayer();
+            counts[l] = 0;
+        }
+    }
+    /**
+     * Gets the number of sprites waiting in a layer.
+     *
+     * @param layer the layer
+     * @return the number of sprites
+     */
+    public int size(Layer layer) {
+        return counts[layer.ordinal()];
+    }
+}
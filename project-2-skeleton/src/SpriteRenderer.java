@@ -0,0 +1,27 @@
+/**
+ * The SpriteRenderer interface is where a SpriteBatch sends its sprites when it is flushed.
+ * Each layer is submitted as one batch: beginLayer, then every sprite in the layer, then endLayer.
+ * BagelSpriteRenderer draws them on the window; CountingSpriteRenderer only counts them, so
+ * drawing can be checked without a window.
+ */
+public interface SpriteRenderer {
+    /**
+     * Starts the batch of a layer.
+     *
+     * @param layer the layer
+     */
+    void beginLayer(SpriteBatch.Layer layer);
+    /**
+     * Draws a sprite of the current layer.
+     *
+     * @param texture the texture of the sprite
+     * @param x the x-coordinate of the centre of the sprite
+     * @param y the y-coordinate of the centre of the sprite
+     * @param rotation the rotation of the sprite, in radians
+     */
+    void draw(Texture texture, double x, double y, double rotation);
+    /**
+     * Ends the batch of the current layer.
+     */
+    void endLayer();
+}
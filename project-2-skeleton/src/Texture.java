@@ -0,0 +1,211 @@
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+
+import bagel.*;
+
+/**
+ * The Texture class is a shared handle to an image loaded through the TextureCache.
+ * Every entity that uses the same image path draws through the same Texture,
+ * so the image is decoded once no matter how many entities refer to it.
+ * The image is decoded lazily on the first draw. Its size is read from the file header,
+ * so it can be queried without a window.
+ * A Texture whose image was packed into the TextureAtlas draws its section of the atlas instead.
+ *
+ * Attributes:
+ * - path: The path of the image file.
+ * - image: The decoded image, or null if it has not been decoded yet.
+ * - atlas: The atlas the image was packed into, or null if it is drawn on its own.
+ * - region: The section of the atlas holding the image, or null if it is drawn on its own.
+ * - drawOptions: The Texture's own draw options, which select its section of the atlas if it is in
+ *   one and take the rotation of each draw; callers never pass in options that could be changed.
+ * - width, height: The size of the image, or -1 if it has not been read yet.
+ * - refCount: The number of holders currently sharing this Texture.
+ */
+public class Texture {
+    private final String path;
+    private Image image = null;
+    private final TextureAtlas atlas;
+    private final TextureAtlas.Region region;
+    private final DrawOptions drawOptions = new DrawOptions();
+    private double width = -1;
+    private double height = -1;
+    private int refCount = 0;
+    /**
+     * Constructs a Texture for a given image path.
+     * Textures are only created by the TextureCache.
+     *
+     * @param path the path of the image file
+     * @param atlas the atlas to draw the image from, or null to draw it on its own
+     */
+    Texture(String path, TextureAtlas atlas) {
+        this.path = path;
+        this.region = atlas == null ? null : atlas.getRegion(path);
+        this.atlas = region == null ? null : atlas;
+        if (region != null) {
+            drawOptions.setSection(region.x, region.y, region.width, region.height);
+            width = region.width;
+            height = region.height;
+        }
+    }
+    /**
+     * Gets the path of the image file.
+     *
+     * @return the path of the image file
+     */
+    public String getPath() {
+        return path;
+    }
+    /**
+     * Draws the Texture centred at a given position.
+     *
+     * @param x the x-coordinate of the centre
+     * @param y the y-coordinate of the centre
+     */
+    public void draw(double x, double y) {
+        if (atlas != null) {
+            atlas.draw(x, y, drawOptions.setRotation(0));
+        } else {
+            getImage().draw(x, y);
+        }
+    }
+    /**
+     * Draws the Texture centred at a given position, rotated by a given angle.
+     *
+     * @param x the x-coordinate of the centre
+     * @param y the y-coordinate of the centre
+     * @param rotation the rotation, in radians
+     */
+    public void draw(double x, double y, double rotation) {
+        drawOptions.setRotation(rotation);
+        if (atlas != null) {
+            atlas.draw(x, y, drawOptions);
+        } else {
+            getImage().draw(x, y, drawOptions);
+        }
+    }
+    /**
+     * Gets the path of the image the Texture is drawn from: the atlas sheet if the Texture is
+     * in the atlas, or its own image otherwise. Textures with the same sheet draw without
+     * switching textures.
+     *
+     * @return the path of the sheet
+     */
+    public String getSheetPath() {
+        return atlas != null ? atlas.getPath() : path;
+    }
+    /**
+     * Gets the width of the Texture.
+     *
+     * @return the width of the Texture
+     */
+    public double getWidth() {
+        if (width < 0) {
+            readSize();
+        }
+        return width;
+    }
+    /**
+     * Gets the height of the Texture.
+     *
+     * @return the height of the Texture
+     */
+    public double getHeight() {
+        if (height < 0) {
+            readSize();
+        }
+        return height;
+    }
+    /**
+     * Reads the size of the image from the file header without decoding the pixels.
+     * The file name is matched without regard to case, as the shipped images are named with
+     * both .png and .PNG. Falls back to decoding the image, with a warning, if the header
+     * cannot be read.
+     */
+    private void readSize() {
+        try (ImageInputStream stream = ImageIO.createImageInputStream(findFile(path))) {
+            Iterator<ImageReader> readers = stream == null ? null : ImageIO.getImageReaders(stream);
+            if (readers != null && readers.hasNext()) {
+                ImageReader reader = readers.next();
+                try {
+                    reader.setInput(stream);
+                    width = reader.getWidth(0);
+                    height = reader.getHeight(0);
+                    return;
+                } finally {
+                    reader.dispose();
+                }
+            }
+        } catch (IOException e) {
+            // fall back to decoding the image below
+        }
+        System.err.println("Could not read the size of " + path + " from its header; decoding the image");
+        width = getImage().getWidth();
+        height = getImage().getHeight();
+    }
+    /**
+     * Finds the file of an image, matching the file name without regard to case if it is not
+     * found as given.
+     *
+     * @param imagePath the path of the image
+     * @return the file, which does not exist if no name matches
+     */
+    static File findFile(String imagePath) {
+        File file = new File(imagePath);
+        if (!file.isFile()) {
+            File dir = file.getAbsoluteFile().getParentFile();
+            String[] names = dir == null ? null : dir.list();
+            if (names != null) {
+                for (String name : names) {
+                    if (name.equalsIgnoreCase(file.getName())) {
+                        return new File(dir, name);
+                    }
+                }
+            }
+        }
+        return file;
+    }
+    /**
+     * Gets the decoded image, decoding it on first use.
+     */
+    private Image getImage() {
+        if (image == null) {
+            image = new Image(path);
+        }
+        return image;
+    }
+    /**
+     * Increments the reference count.
+     */
+    void retain() {
+        refCount++;
+    }
+    /**
+     * Decrements the reference count.
+     *
+     * @return true if no holders remain, false otherwise
+     * @throws IllegalStateException if the Texture has no holders left to release it
+     */
+    boolean releaseRef() {
+        if (refCount == 0) {
+            throw new IllegalStateException("Texture " + path + " released more times than it was acquired");
+        }
+        refCount--;
+        if (refCount == 0) {
+            image = null;
+            return true;
+        }
+        return false;
+    }
+    /**
+     * Gets the number of holders currently sharing this Texture.
+     *
+     * @return the reference count
+     */
+    public int getRefCount() {
+        return refCount;
+    }
+}
@@ -0,0 +1,200 @@
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import javax.imageio.ImageIO;
+
+import bagel.*;
+
+/**
+ * The TextureAtlas class packs many small images into one large image.
+ * Every Texture in the atlas draws a section of the same image, so a frame's sprites are all
+ * drawn from one texture and the graphics card never switches textures between them.
+ * The images are packed on shelves, tallest first, into a sheet 1024 pixels wide with a
+ * small gap around each image so neighbours do not bleed into each other when scaled.
+ * The packed sheet is written to a temporary PNG file, since bagel loads images from files,
+ * and decoded on the first draw.
+ *
+ * Attributes:
+ * - SPRITES: The sprites of the game, which ShadowDance packs at startup.
+ * - SHEET_WIDTH: The width of the packed sheet.
+ * - PADDING: The gap around each image in the sheet.
+ * - path: The path of the packed sheet.
+ * - width, height: The size of the packed sheet.
+ * - regions: The section of the sheet each image was packed into, keyed by image path.
+ * - image: The decoded sheet, or null if it has not been decoded yet.
+ */
+public class TextureAtlas {
+    public static final String[] SPRITES = {
+        "res/laneLeft.png", "res/laneRight.png", "res/laneUp.png", "res/laneDown.png", "res/laneSpecial.png",
+        "res/holdNoteLeft.png", "res/holdNoteRight.png", "res/holdNoteUp.png", "res/holdNoteDown.png",
+        "res/noteLeft.png", "res/noteRight.png", "res/noteUp.png", "res/noteDown.png",
+        "res/note2x.png", "res/noteBomb.png", "res/noteSlowDown.png", "res/noteSpeedUp.png",
+        "res/guardian.png", "res/enemy.png", "res/arrow.png"
+    };
+    private static final int SHEET_WIDTH = 1024;
+    private static final int PADDING = 2;
+    private final String path;
+    private final int width;
+    private final int height;
+    private final Map<String, Region> regions;
+    private Image image = null;
+
+    private TextureAtlas(String path, int width, int height, Map<String, Region> regions) {
+        this.path = path;
+        this.width = width;
+        this.height = height;
+        this.regions = regions;
+    }
+    /**
+     * Packs images into a new atlas.
+     * Images that cannot be read are left out, and are drawn on their own as before.
+     *
+     * @param imagePaths the paths of the images to pack
+     * @return the atlas
+     * @throws IOException if the packed sheet cannot be written
+     */
+    public static TextureAtlas pack(String[] imagePaths) throws IOException {
+        String[] paths = new String[imagePaths.length];
+        BufferedImage[] images = new BufferedImage[imagePaths.length];
+        int count = 0;
+        for (String imagePath : imagePaths) {
+            BufferedImage image = readImage(imagePath);
+            if (image != null && image.getWidth() + 2 * PADDING <= SHEET_WIDTH) {
+                paths[count] = imagePath;
+                images[count] = image;
+                count++;
+            }
+        }
+        Integer[] order = new Integer[count];
+        for (int i = 0; i < count; i++) {
+            order[i] = i;
+        }
+        final BufferedImage[] packed = images;
+        Arrays.sort(order, Comparator.comparingInt((Integer i) -> packed[i].getHeight()).reversed());
+
+        // shelf packing: fill a row left to right, then start a new row below the tallest image in it
+        Map<String, Region> regions = new HashMap<>();
+        int shelfX = 0;
+        int shelfY = 0;
+        int shelfHeight = 0;
+        for (int i : order) {
+            int w = images[i].getWidth() + 2 * PADDING;
+            int h = images[i].getHeight() + 2 * PADDING;
+            if (shelfX + w > SHEET_WIDTH) {
+                shelfY += shelfHeight;
+                shelfX = 0;
+                shelfHeight = 0;
+            }
+            regions.put(paths[i], new Region(shelfX + PADDING, shelfY + PADDING,
+                    images[i].getWidth(), images[i].getHeight()));
+            shelfX += w;
+            shelfHeight = Math.max(shelfHeight, h);
+        }
+        int sheetHeight = Integer.highestOneBit(Math.max(1, shelfY + shelfHeight) - 1) << 1;
+
+        BufferedImage sheet = new BufferedImage(SHEET_WIDTH, Math.max(1, sheetHeight), BufferedImage.TYPE_INT_ARGB);
+        Graphics2D graphics = sheet.createGraphics();
+        for (int i = 0; i < count; i++) {
+            Region region = regions.get(paths[i]);
+            graphics.drawImage(images[i], region.x, region.y, null);
+        }
+        graphics.dispose();
+        File file = Files.createTempFile("shadowdance-atlas", ".png").toFile();
+        file.deleteOnExit();
+        ImageIO.write(sheet, "png", file);
+        return new TextureAtlas(file.getPath(), sheet.getWidth(), sheet.getHeight(), regions);
+    }
+    /**
+     * Reads an image, matching the file name without regard to case if it is not found as given.
+     *
+     * @param imagePath the path of the image
+     * @return the image, or null if it cannot be read
+     */
+    private static BufferedImage readImage(String imagePath) {
+        try {
+            return ImageIO.read(Texture.findFile(imagePath));
+        } catch (IOException e) {
+            return null;
+        }
+    }
+    /**
+     * Gets the section of the sheet an image was packed into.
+     *
+     * @param imagePath the path of the image
+     * @return the section, or null if the image is not in the atlas
+     */
+    public Region getRegion(String imagePath) {
+        return regions.get(imagePath);
+    }
+    /**
+     * Draws a section of the sheet centred at a given position.
+     *
+     * @param x the x-coordinate of the centre
+     * @param y the y-coordinate of the centre
+     * @param options the draw options, which select the section to draw
+     */
+    public void draw(double x, double y, DrawOptions options) {
+        if (image == null) {
+            image = new Image(path);
+        }
+        image.draw(x, y, options);
+    }
+    /**
+     * Gets the path of the packed sheet.
+     *
+     * @return the path of the sheet
+     */
+    public String getPath() {
+        return path;
+    }
+    /**
+     * Gets the width of the packed sheet.
+     *
+     * @return the width, in pixels
+     */
+    public int getWidth() {
+        return width;
+    }
+    /**
+     * Gets the height of the packed sheet.
+     *
+     * @return the height, in pixels
+     */
+    public int getHeight() {
+        return height;
+    }
+    /**
+     * Gets the number of images in the atlas.
+     *
+     * @return the number of images
+     */
+    public int size() {
+        return regions.size();
+    }
+    /**
+     * The Region class is the section of the sheet an image was packed into.
+     *
+     * Attributes:
+     * - x, y: The top-left corner of the section.
+     * - width, height: The size of the section.
+     */
+    public static final class Region {
+        public final int x;
+        public final int y;
+        public final int width;
+        public final int height;
+
+        private Region(int x, int y, int width, int height) {
+            this.x = x;
+            this.y = y;
+            this.width = width;
+            this.height = height;
+        }
+    }
+}
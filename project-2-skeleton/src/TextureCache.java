@@ -0,0 +1,69 @@
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The TextureCache class is the registry every entity loads its images through.
+ * Each image path is decoded at most once while it is in use, and the same Texture
+ * handle is shared by all holders. Textures are reference counted and evicted from
+ * the cache when their last holder releases them.
+ * Eviction only drops the Texture's handle to its decoded bagel Image, so the Image can be
+ * garbage collected; bagel gives no way to delete an Image, so the GL texture it uploaded
+ * is not freed, and stays until the window closes.
+ * Textures whose images are in the atlas draw their section of it.
+ *
+ * Attributes:
+ * - textures: The Textures currently in use, keyed by image path.
+ * - atlas: The TextureAtlas new Textures are drawn from, or null if there is none.
+ */
+public class TextureCache {
+    private static final Map<String, Texture> textures = new HashMap<>();
+    private static TextureAtlas atlas = null;
+
+    private TextureCache() {
+    }
+    /**
+     * Acquires the shared Texture for a given image path, creating it if needed.
+     * Every call must be paired with a call to release.
+     *
+     * @param path the path of the image file
+     * @return the shared Texture for the path
+     */
+    public static synchronized Texture acquire(String path) {
+        Texture texture = textures.get(path);
+        if (texture == null) {
+            texture = new Texture(path, atlas);
+            textures.put(path, texture);
+        }
+        texture.retain();
+        return texture;
+    }
+    /**
+     * Releases a Texture previously acquired from the cache.
+     * The Texture is evicted once no holders remain.
+     *
+     * @param texture the Texture to release
+     * @throws IllegalStateException if the Texture has already been released by every holder
+     */
+    public static synchronized void release(Texture texture) {
+        if (texture.releaseRef()) {
+            textures.remove(texture.getPath());
+        }
+    }
+    /**
+     * Sets the atlas that Textures acquired from now on are drawn from.
+     * Textures already in use keep drawing their own images until they are evicted.
+     *
+     * @param newAtlas the atlas, or null to draw every image on its own
+     */
+    public static synchronized void setAtlas(TextureAtlas newAtlas) {
+        atlas = newAtlas;
+    }
+    /**
+     * Gets the number of distinct Textures currently cached.
+     *
+     * @return the number of cached Textures
+     */
+    public static synchronized int size() {
+        return textures.size();
+    }
+}
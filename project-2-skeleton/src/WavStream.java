@@ -0,0 +1,174 @@
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * The WavStream class reads the samples of a PCM WAV file a chunk at a time.
+ * Only the header is parsed up front; samples are read on demand into a buffer the caller
+ * owns, so memory use does not depend on the length of the file. Chunks other than the
+ * format and data chunks, such as JUNK and LIST, are skipped.
+ *
+ * Attributes:
+ * - in: The stream of the file, positioned inside the data chunk.
+ * - channels: The number of channels.
+ * - sampleRate: The number of sample frames per second.
+ * - bitsPerSample: The size of each sample, 8 or 16 bits.
+ * - dataBytes: The size of the data chunk, in bytes.
+ * - remaining: The number of bytes of the data chunk not yet read.
+ * - scratch: A buffer reused to copy samples from the stream.
+ */
+public class WavStream implements AutoCloseable {
+    private final DataInputStream in;
+    private int channels;
+    private int sampleRate;
+    private int bitsPerSample;
+    private long dataBytes;
+    private long remaining;
+    private final byte[] scratch = new byte[8192];
+    /**
+     * Opens a WAV file and reads its header.
+     *
+     * @param filePath the path to the WAV file
+     * @throws IOException if the file cannot be read or is not 8- or 16-bit PCM
+     */
+    public WavStream(String filePath) throws IOException {
+        in = new DataInputStream(new BufferedInputStream(new FileInputStream(filePath)));
+        try {
+            readHeader(filePath);
+        } catch (IOException e) {
+            in.close();
+            throw e;
+        }
+    }
+
+    private void readHeader(String filePath) throws IOException {
+        if (readTag() != 0x52494646 /* RIFF */) {
+            throw new IOException(filePath + " is not a WAV file");
+        }
+        readLittleInt();
+        if (readTag() != 0x57415645 /* WAVE */) {
+            throw new IOException(filePath + " is not a WAV file");
+        }
+        boolean hasFormat = false;
+        while (true) {
+            int tag = readTag();
+            long size = readLittleInt() & 0xFFFFFFFFL;
+            if (tag == 0x666D7420 /* "fmt " */) {
+                int format = readLittleShort();
+                channels = readLittleShort();
+                sampleRate = readLittleInt();
+                readLittleInt();
+                readLittleShort();
+                bitsPerSample = readLittleShort();
+                skip(size - 16 + (size & 1));
+                if (format != 1 || (bitsPerSample != 8 && bitsPerSample != 16) || channels < 1 || channels > 2) {
+                    throw new IOException(filePath + " is not 8- or 16-bit mono or stereo PCM");
+                }
+                hasFormat = true;
+            } else if (tag == 0x64617461 /* data */) {
+                if (!hasFormat) {
+                    throw new IOException(filePath + " has no format chunk before its data");
+                }
+                dataBytes = size;
+                remaining = size;
+                return;
+            } else {
+                skip(size + (size & 1));
+            }
+        }
+    }
+
+    private int readTag() throws IOException {
+        return in.readInt();
+    }
+
+    private int readLittleInt() throws IOException {
+        return Integer.reverseBytes(in.readInt());
+    }
+
+    private int readLittleShort() throws IOException {
+        return Short.reverseBytes(in.readShort()) & 0xFFFF;
+    }
+
+    private void skip(long bytes) throws IOException {
+        while (bytes > 0) {
+            long skipped = in.skip(bytes);
+            if (skipped <= 0) {
+                throw new EOFException();
+            }
+            bytes -= skipped;
+        }
+    }
+    /**
+     * Reads the next samples into a buffer, up to its remaining space.
+     * Only whole sample frames are read.
+     *
+     * @param buffer the buffer to fill from its position
+     * @return the number of sample frames read, or 0 at the end of the data
+     * @throws IOException if the file cannot be read
+     */
+    public int read(ByteBuffer buffer) throws IOException {
+        int frameBytes = getFrameBytes();
+        long wanted = Math.min(remaining, buffer.remaining() / frameBytes * (long) frameBytes);
+        long read = 0;
+        while (read < wanted) {
+            int n = in.read(scratch, 0, (int) Math.min(scratch.length, wanted - read));
+            if (n < 0) {
+                remaining = 0;
+                break;
+            }
+            buffer.put(scratch, 0, n);
+            read += n;
+        }
+        remaining -= read;
+        return (int) (read / frameBytes);
+    }
+    /**
+     * Gets the number of channels.
+     *
+     * @return 1 for mono or 2 for stereo
+     */
+    public int getChannels() {
+        return channels;
+    }
+    /**
+     * Gets the number of sample frames per second.
+     *
+     * @return the sample rate, in hertz
+     */
+    public int getSampleRate() {
+        return sampleRate;
+    }
+    /**
+     * Gets the size of each sample.
+     *
+     * @return 8 or 16 bits
+     */
+    public int getBitsPerSample() {
+        return bitsPerSample;
+    }
+    /**
+     * Gets the size of a sample frame, one sample for each channel.
+     *
+     * @return the size, in bytes
+     */
+    public int getFrameBytes() {
+        return channels * bitsPerSample / 8;
+    }
+    /**
+     * Gets the length of the song.
+     *
+     * @return the length, in sample frames
+     */
+    public long getLengthFrames() {
+        return dataBytes / getFrameBytes();
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+}